@@ -0,0 +1,19 @@
+package com.example.ipgeo.cache;
+
+import com.example.ipgeo.model.GeoLocationResult;
+import java.time.Duration;
+
+/**
+ * A cached result with its absolute expiry, so it keeps its deadline when moved between tiers,
+ * and the TTL it was given, which the next refresh grows or shrinks.
+ */
+public record CacheEntry(GeoLocationResult result, long expiresAtMillis, long ttlMillis) {
+
+  public Duration remaining(long nowMillis) {
+    return Duration.ofMillis(Math.max(0, expiresAtMillis - nowMillis));
+  }
+
+  public boolean isExpired(long nowMillis) {
+    return expiresAtMillis <= nowMillis;
+  }
+}
@@ -1,7 +1,10 @@
 package com.example.ipgeo.cache;
 import com.example.ipgeo.model.GeoLocationResult;
+import java.time.Duration;
 import java.util.Optional;
 public interface CacheService {
   Optional<GeoLocationResult> get(String ipAddress);
   void put(String ipAddress, GeoLocationResult result);
+  /** Remaining lifetime of the cached entry, or empty if absent or unknown. */
+  default Optional<Duration> timeToLive(String ipAddress) { return Optional.empty(); }
 }
\ No newline at end of file
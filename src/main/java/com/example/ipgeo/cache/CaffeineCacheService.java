@@ -1,30 +1,211 @@
 package com.example.ipgeo.cache;
 import com.example.ipgeo.config.AppProperties;
 import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.observability.CacheEvictionBurstEvent;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.FlightRecorder;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+/**
+ * Caffeine L1 in front of an optional off-heap L2. Each entry carries its own logical expiry.
+ * With {@code ipgeo.cache.adaptive} on, the refresh that replaces an entry compares its answer
+ * with the previous one: stable answers get a longer TTL next time, changed ones a shorter one.
+ * The previous answer is looked up in L1, then in its TTL history: the L2 slot when that tier is
+ * on (it keeps expired entries until the slot is reused), otherwise a small side map of
+ * {@code ip → (fingerprint, ttl)}. Expired entries never occupy the served L1.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class CaffeineCacheService implements CacheService {
   private final AppProperties props;
-  private Cache<String, GeoLocationResult> cache;
-  private Cache<String, GeoLocationResult> cache() {
+  private final LongSupplier clock;
+  private final Executor maintenance;
+  private volatile Cache<String, CacheEntry> cache;
+  private OffHeapCacheStore l2;
+  private Cache<String, TtlHistory> history;
+  private final LongAdder sizeEvictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final Runnable evictionBurstHook = this::reportEvictionBurst;
+  @Autowired
+  public CaffeineCacheService(AppProperties props) {
+    this(props, System::currentTimeMillis, ForkJoinPool.commonPool());
+  }
+  /** {@code maintenance} runs Caffeine's eviction work; tests pass {@code Runnable::run} to make it synchronous. */
+  public CaffeineCacheService(AppProperties props, LongSupplier clock, Executor maintenance) {
+    this.props = props;
+    this.clock = clock;
+    this.maintenance = maintenance;
+    // registered up front: JFR does not schedule hooks added after a recording has started
+    FlightRecorder.addPeriodicEvent(CacheEvictionBurstEvent.class, evictionBurstHook);
+  }
+  private Cache<String, CacheEntry> cache() {
+    Cache<String, CacheEntry> built = cache;
+    return built != null ? built : init();
+  }
+  /** Synchronized so a large L2 store is never allocated twice. */
+  private synchronized Cache<String, CacheEntry> init() {
     if (cache == null) {
+      AppProperties.L2 l2Props = props.getCache().getL2();
+      if (l2Props.isEnabled()) {
+        l2 = new OffHeapCacheStore(l2Props.getCapacity(), l2Props.getSlotBytes(), l2Props.getSegments(),
+          l2Props.getMaxProbe(), StringUtils.hasText(l2Props.getFile()) ? Path.of(l2Props.getFile()) : null);
+      }
+      AppProperties.Adaptive adaptive = props.getCache().getAdaptive();
+      if (adaptive.isEnabled() && l2 == null) {
+        history = Caffeine.newBuilder()
+          .ticker(this::ticker)
+          .expireAfter(new HistoryExpiry(adaptive.getRetention().toNanos()))
+          .maximumSize(adaptive.getHistoryMaxSize())
+          .executor(maintenance)
+          .build();
+      }
       cache = Caffeine.newBuilder()
-        .expireAfterWrite(Duration.ofDays(props.getCache().getTtlDays()))
+        .ticker(this::ticker)
+        .expireAfter(new EntryExpiry())
         .maximumSize(props.getCache().getMaxSize())
+        .executor(maintenance)
+        .evictionListener((String key, CacheEntry entry, RemovalCause cause) ->
+          (cause == RemovalCause.EXPIRED ? expirations : sizeEvictions).increment())
         .build();
     }
     return cache;
   }
   @Override public Optional<GeoLocationResult> get(String ipAddress) {
-    return Optional.ofNullable(cache().getIfPresent(ipAddress));
+    Cache<String, CacheEntry> l1 = cache();
+    long now = clock.getAsLong();
+    CacheEntry entry = l1.getIfPresent(ipAddress);
+    if (entry == null && l2 != null) {
+      entry = l2.get(ipAddress, now);
+      if (entry != null) {
+        l1.put(ipAddress, entry); // promote, keeping the original expiry
+      }
+    }
+    return entry == null || entry.isExpired(now) ? Optional.empty() : Optional.of(entry.result());
   }
   @Override public void put(String ipAddress, GeoLocationResult result) {
-    cache().put(ipAddress, result);
+    long now = clock.getAsLong();
+    long ttl = nextTtl(ipAddress, result);
+    CacheEntry entry = new CacheEntry(result, now + ttl, ttl);
+    cache().put(ipAddress, entry);
+    if (l2 != null) {
+      l2.put(ipAddress, entry, now);
+    }
+    if (history != null) {
+      history.put(ipAddress, new TtlHistory(fingerprint(result), entry.expiresAtMillis(), ttl));
+    }
+  }
+  @Override public Optional<Duration> timeToLive(String ipAddress) {
+    long now = clock.getAsLong();
+    return Optional.ofNullable(cache().getIfPresent(ipAddress))
+      .filter(entry -> !entry.isExpired(now))
+      .map(entry -> entry.remaining(now));
+  }
+  /** Starting TTL for new addresses; otherwise the previous TTL grown or shrunk by whether the answer changed. */
+  private long nextTtl(String ipAddress, GeoLocationResult result) {
+    long initial = Duration.ofDays(props.getCache().getTtlDays()).toMillis();
+    AppProperties.Adaptive adaptive = props.getCache().getAdaptive();
+    if (!adaptive.isEnabled()) {
+      return initial;
+    }
+    long min = adaptive.getMinTtl().toMillis();
+    long max = adaptive.getMaxTtl().toMillis();
+    TtlHistory previous = previous(ipAddress);
+    if (previous == null) {
+      return Math.max(min, Math.min(max, initial));
+    }
+    boolean changed = previous.fingerprint() != fingerprint(result);
+    double factor = changed ? adaptive.getShrinkFactor() : adaptive.getGrowthFactor();
+    long ttl = Math.max(min, Math.min(max, (long) (previous.ttlMillis() * factor)));
+    if (changed) {
+      log.debug("cache.ttl ip={} answer changed, ttl {} -> {}", ipAddress,
+        Duration.ofMillis(previous.ttlMillis()), Duration.ofMillis(ttl));
+    }
+    return ttl;
+  }
+  /** What is known about the entry being replaced, expired or not; the history is only asked when L1 has let it go. */
+  private TtlHistory previous(String ipAddress) {
+    CacheEntry previous = cache().getIfPresent(ipAddress);
+    if (previous == null && l2 != null) {
+      previous = l2.get(ipAddress, Long.MIN_VALUE);
+    }
+    if (previous != null) {
+      return new TtlHistory(fingerprint(previous.result()), previous.expiresAtMillis(), previous.ttlMillis());
+    }
+    return history != null ? history.getIfPresent(ipAddress) : null;
+  }
+  /** Caffeine's clock follows ours, so physical expiry agrees with the wall-clock {@code expiresAtMillis}. */
+  private long ticker() {
+    return TimeUnit.MILLISECONDS.toNanos(clock.getAsLong());
+  }
+  private static long fingerprint(GeoLocationResult r) {
+    Hasher h = Hashing.murmur3_128().newHasher();
+    for (String s : new String[] {r.ipAddress(), r.continentName(), r.countryName(), r.regionName(), r.cityName()}) {
+      if (s == null) {
+        h.putInt(-1);
+      } else {
+        h.putInt(s.length()).putString(s, StandardCharsets.UTF_8);
+      }
+    }
+    h.putBoolean(r.latitude() != null).putDouble(r.latitude() != null ? r.latitude() : 0);
+    h.putBoolean(r.longitude() != null).putDouble(r.longitude() != null ? r.longitude() : 0);
+    return h.hash().asLong();
+  }
+  @PreDestroy public void close() {
+    FlightRecorder.removePeriodicEvent(evictionBurstHook);
+  }
+  /** Runs once per JFR period, and only while a recording has the event enabled. */
+  private void reportEvictionBurst() {
+    long size = sizeEvictions.sumThenReset();
+    long expired = expirations.sumThenReset();
+    long threshold = props.getCache().getEvictionBurstThreshold();
+    if (size + expired > 0 && size + expired >= threshold) {
+      new CacheEvictionBurstEvent(size, expired, threshold).commit();
+    }
+  }
+  /** Expires each entry at its own absolute deadline, which survives promotion from L2. */
+  private final class EntryExpiry implements Expiry<String, CacheEntry> {
+    @Override public long expireAfterCreate(String key, CacheEntry entry, long currentTime) {
+      return entry.remaining(clock.getAsLong()).toNanos();
+    }
+    @Override public long expireAfterUpdate(String key, CacheEntry entry, long currentTime, long currentDuration) {
+      return entry.remaining(clock.getAsLong()).toNanos();
+    }
+    @Override public long expireAfterRead(String key, CacheEntry entry, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+  /** Keeps a history record for {@code retention} past the entry's own expiry. */
+  @RequiredArgsConstructor
+  private final class HistoryExpiry implements Expiry<String, TtlHistory> {
+    private final long retentionNanos;
+    @Override public long expireAfterCreate(String key, TtlHistory h, long currentTime) {
+      return Math.max(0, h.expiresAtMillis() - clock.getAsLong()) * 1_000_000L + retentionNanos;
+    }
+    @Override public long expireAfterUpdate(String key, TtlHistory h, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, h, currentTime);
+    }
+    @Override public long expireAfterRead(String key, TtlHistory h, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
   }
-}
\ No newline at end of file
+  /** Enough of a replaced entry to grow or shrink its successor's TTL: a fingerprint of the answer, not the answer. */
+  private record TtlHistory(long fingerprint, long expiresAtMillis, long ttlMillis) {}
+}
@@ -0,0 +1,173 @@
+package com.example.ipgeo.cache;
+
+import com.example.ipgeo.codec.GeoLocationProtobuf;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Second-tier cache kept outside the GC-managed heap: fixed-size slots in direct (or
+ * memory-mapped) {@link ByteBuffer} segments, addressed by open addressing with a bounded
+ * linear probe. Each segment has its own lock. When a probe window is full, CLOCK picks the
+ * victim: expired entries go first, then the first entry not read since the hand last passed.
+ *
+ * <p>Slot layout: {@code [used:1][ref:1][keyLen:2][valueLen:2][hash:8][expiresAt:8][ttl:8][key][value]}
+ * where value is the protobuf encoding from {@link GeoLocationProtobuf}. Slots are never
+ * emptied again once used, so a lookup can stop at the first empty slot in its window.
+ */
+public final class OffHeapCacheStore {
+
+  private static final int USED = 0;
+  private static final int REF = 1;
+  private static final int KEY_LEN = 2;
+  private static final int VALUE_LEN = 4;
+  private static final int HASH = 6;
+  private static final int EXPIRES_AT = 14;
+  private static final int TTL = 22;
+  private static final int HEADER = 30;
+
+  private final ByteBuffer[] segments;
+  private final Object[] locks;
+  private final int slotsPerSegment;
+  private final int slotBytes;
+  private final int maxProbe;
+
+  public OffHeapCacheStore(long capacity, int slotBytes, int segmentCount, int maxProbe, Path file) {
+    if (slotBytes <= HEADER) {
+      throw new IllegalArgumentException("slotBytes must exceed the " + HEADER + "-byte slot header");
+    }
+    long perSegment = (capacity + segmentCount - 1) / segmentCount;
+    if (perSegment * slotBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Segments would exceed 2 GiB; raise the segment count");
+    }
+    this.slotsPerSegment = (int) perSegment;
+    this.slotBytes = slotBytes;
+    this.maxProbe = Math.min(maxProbe, slotsPerSegment);
+    this.segments = new ByteBuffer[segmentCount];
+    this.locks = new Object[segmentCount];
+    int segmentBytes = slotsPerSegment * slotBytes;
+    try (FileChannel channel = file == null ? null : FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (int i = 0; i < segmentCount; i++) {
+        segments[i] = channel == null
+                ? ByteBuffer.allocateDirect(segmentBytes)
+                : channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentBytes, segmentBytes);
+        locks[i] = new Object();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map L2 cache file " + file, e);
+    }
+  }
+
+  public CacheEntry get(String key, long nowMillis) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.US_ASCII);
+    long hash = hash(key);
+    ByteBuffer seg = segments[segment(hash)];
+    synchronized (locks[segment(hash)]) {
+      int slot = find(seg, hash, keyBytes);
+      if (slot < 0) {
+        return null;
+      }
+      long expiresAt = seg.getLong(slot + EXPIRES_AT);
+      if (expiresAt <= nowMillis) {
+        return null;
+      }
+      seg.put(slot + REF, (byte) 1);
+      byte[] value = new byte[seg.getShort(slot + VALUE_LEN)];
+      seg.get(slot + HEADER + keyBytes.length, value);
+      return new CacheEntry(GeoLocationProtobuf.fromBytes(value), expiresAt, seg.getLong(slot + TTL));
+    }
+  }
+
+  /** @return {@code false} if the entry is too large for a slot and was not stored */
+  public boolean put(String key, CacheEntry entry, long nowMillis) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.US_ASCII);
+    byte[] value = GeoLocationProtobuf.toBytes(entry.result());
+    if (HEADER + keyBytes.length + value.length > slotBytes) {
+      return false;
+    }
+    long hash = hash(key);
+    ByteBuffer seg = segments[segment(hash)];
+    synchronized (locks[segment(hash)]) {
+      int slot = find(seg, hash, keyBytes);
+      if (slot < 0) {
+        slot = claim(seg, hash, nowMillis);
+      }
+      seg.put(slot + USED, (byte) 1);
+      seg.put(slot + REF, (byte) 0);
+      seg.putShort(slot + KEY_LEN, (short) keyBytes.length);
+      seg.putShort(slot + VALUE_LEN, (short) value.length);
+      seg.putLong(slot + HASH, hash);
+      seg.putLong(slot + EXPIRES_AT, entry.expiresAtMillis());
+      seg.putLong(slot + TTL, entry.ttlMillis());
+      seg.put(slot + HEADER, keyBytes);
+      seg.put(slot + HEADER + keyBytes.length, value);
+      return true;
+    }
+  }
+
+  /** Offset of the key's slot, or {@code -1}. */
+  private int find(ByteBuffer seg, long hash, byte[] keyBytes) {
+    int start = home(hash);
+    for (int i = 0; i < maxProbe; i++) {
+      int slot = offset(start, i);
+      if (seg.get(slot + USED) == 0) {
+        return -1;
+      }
+      if (seg.getLong(slot + HASH) == hash && keyEquals(seg, slot, keyBytes)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /** An empty slot in the window, else an expired one, else the CLOCK victim. */
+  private int claim(ByteBuffer seg, long hash, long nowMillis) {
+    int start = home(hash);
+    for (int i = 0; i < maxProbe; i++) {
+      int slot = offset(start, i);
+      if (seg.get(slot + USED) == 0 || seg.getLong(slot + EXPIRES_AT) <= nowMillis) {
+        return slot;
+      }
+    }
+    for (int i = 0; i < maxProbe; i++) {
+      int slot = offset(start, i);
+      if (seg.get(slot + REF) == 0) {
+        return slot;
+      }
+      seg.put(slot + REF, (byte) 0); // second chance
+    }
+    return offset(start, 0);
+  }
+
+  private boolean keyEquals(ByteBuffer seg, int slot, byte[] keyBytes) {
+    if (seg.getShort(slot + KEY_LEN) != keyBytes.length) {
+      return false;
+    }
+    byte[] stored = new byte[keyBytes.length];
+    seg.get(slot + HEADER, stored);
+    return Arrays.equals(stored, keyBytes);
+  }
+
+  private int segment(long hash) {
+    return (int) ((hash >>> 32) % segments.length);
+  }
+
+  private int home(long hash) {
+    return (int) Long.remainderUnsigned(hash, slotsPerSegment);
+  }
+
+  private int offset(int home, int probe) {
+    return ((home + probe) % slotsPerSegment) * slotBytes;
+  }
+
+  private static long hash(String key) {
+    long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+    return (h ^ (h >>> 29)) & Long.MAX_VALUE;
+  }
+}
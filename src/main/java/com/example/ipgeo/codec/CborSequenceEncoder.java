@@ -0,0 +1,32 @@
+package com.example.ipgeo.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link Jackson2CborEncoder} only implements {@code encodeValue}, which WebFlux never calls for
+ * response bodies. This writes a single value as one CBOR item and a stream as a CBOR sequence
+ * (RFC 8742: items back to back).
+ */
+public class CborSequenceEncoder extends Jackson2CborEncoder {
+
+  public CborSequenceEncoder(ObjectMapper cborMapper) {
+    super(cborMapper, MediaType.APPLICATION_CBOR);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                 MimeType mimeType, Map<String, Object> hints) {
+    Flux<?> values = inputStream instanceof Mono ? Mono.from(inputStream).flux() : Flux.from(inputStream);
+    return values.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+  }
+}
@@ -0,0 +1,122 @@
+package com.example.ipgeo.codec;
+
+import com.example.ipgeo.model.GeoLocationResult;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-rolled protobuf wire format for {@link GeoLocationResult}, equivalent to:
+ * <pre>
+ * message GeoLocation {
+ *   optional string ip_address = 1;
+ *   optional string continent  = 2;
+ *   optional string country    = 3;
+ *   optional string region     = 4;
+ *   optional string city       = 5;
+ *   optional double latitude   = 6;
+ *   optional double longitude  = 7;
+ * }
+ * </pre>
+ * Fields have explicit presence: {@code ""} is written, {@code null} is left out, so a result
+ * round-trips exactly (the off-heap cache tier relies on this).
+ * Field numbers are part of the public contract: never renumber, only append.
+ */
+public final class GeoLocationProtobuf {
+
+  private static final int WIRE_FIXED64 = 1;
+  private static final int WIRE_LENGTH_DELIMITED = 2;
+
+  private GeoLocationProtobuf() {}
+
+  public static byte[] toBytes(GeoLocationResult r) {
+    byte[][] strings = {
+            utf8(r.ipAddress()), utf8(r.continentName()), utf8(r.countryName()), utf8(r.regionName()), utf8(r.cityName())
+    };
+    int size = 0;
+    for (byte[] s : strings) {
+      size += s == null ? 0 : 1 + varintSize(s.length) + s.length;
+    }
+    size += (r.latitude() != null ? 9 : 0) + (r.longitude() != null ? 9 : 0);
+
+    ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < strings.length; i++) {
+      if (strings[i] != null) {
+        out.put((byte) (((i + 1) << 3) | WIRE_LENGTH_DELIMITED));
+        putVarint(out, strings[i].length);
+        out.put(strings[i]);
+      }
+    }
+    if (r.latitude() != null) {
+      out.put((byte) ((6 << 3) | WIRE_FIXED64)).putDouble(r.latitude());
+    }
+    if (r.longitude() != null) {
+      out.put((byte) ((7 << 3) | WIRE_FIXED64)).putDouble(r.longitude());
+    }
+    return out.array();
+  }
+
+  public static GeoLocationResult fromBytes(byte[] bytes) {
+    ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    String[] strings = new String[6];
+    Double latitude = null;
+    Double longitude = null;
+    while (in.hasRemaining()) {
+      int tag = (int) readVarint(in);
+      int field = tag >>> 3;
+      switch (tag & 0x7) {
+        case WIRE_LENGTH_DELIMITED -> {
+          byte[] value = new byte[(int) readVarint(in)];
+          in.get(value);
+          if (field >= 1 && field <= 5) {
+            strings[field] = new String(value, StandardCharsets.UTF_8);
+          }
+        }
+        case WIRE_FIXED64 -> {
+          double value = in.getDouble();
+          if (field == 6) {
+            latitude = value;
+          } else if (field == 7) {
+            longitude = value;
+          }
+        }
+        case 0 -> readVarint(in);
+        default -> throw new IllegalArgumentException("Unsupported wire type in tag " + tag);
+      }
+    }
+    return new GeoLocationResult(strings[1], strings[2], strings[3], strings[4], strings[5], latitude, longitude);
+  }
+
+  static int varintSize(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  static void putVarint(ByteBuffer out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  private static long readVarint(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+}
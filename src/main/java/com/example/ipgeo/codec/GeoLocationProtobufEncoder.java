@@ -0,0 +1,55 @@
+package com.example.ipgeo.codec;
+
+import com.example.ipgeo.model.GeoLocationResult;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes {@link GeoLocationResult} as {@code application/x-protobuf}. A single value is one bare
+ * message; a stream of values is varint length-delimited, as with {@code writeDelimitedTo}.
+ */
+public class GeoLocationProtobufEncoder implements Encoder<GeoLocationResult> {
+
+  public static final MimeType PROTOBUF = new MimeType("application", "x-protobuf");
+
+  @Override
+  public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+    return GeoLocationResult.class.isAssignableFrom(elementType.toClass())
+            && (mimeType == null || PROTOBUF.isCompatibleWith(mimeType));
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(Publisher<? extends GeoLocationResult> input, DataBufferFactory bufferFactory,
+                                 ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+    if (input instanceof Mono) {
+      return Mono.from(input).map(r -> encodeValue(r, bufferFactory, elementType, mimeType, hints)).flux();
+    }
+    return Flux.from(input).map(r -> {
+      byte[] message = GeoLocationProtobuf.toBytes(r);
+      ByteBuffer delimited = ByteBuffer.allocate(GeoLocationProtobuf.varintSize(message.length) + message.length);
+      GeoLocationProtobuf.putVarint(delimited, message.length);
+      delimited.put(message).flip();
+      return bufferFactory.wrap(delimited);
+    });
+  }
+
+  @Override
+  public DataBuffer encodeValue(GeoLocationResult value, DataBufferFactory bufferFactory,
+                                ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+    return bufferFactory.wrap(GeoLocationProtobuf.toBytes(value));
+  }
+
+  @Override
+  public List<MimeType> getEncodableMimeTypes() {
+    return List.of(PROTOBUF);
+  }
+}
@@ -1,10 +1,14 @@
 package com.example.ipgeo.config;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Data;
 import lombok.Getter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -20,6 +24,10 @@ public class AppProperties {
   private final Cache cache = new Cache();
   private final Backpressure backpressure = new Backpressure();
   private final Freeipapi freeipapi = new Freeipapi();
+  private final Quota quota = new Quota();
+  private final Warmup warmup = new Warmup();
+  private final Deadline deadline = new Deadline();
+  private final Timing timing = new Timing();
 
   @Data
   public static class Cache {
@@ -27,6 +35,48 @@ public class AppProperties {
     private int ttlDays;
     @Positive
     private long maxSize;
+    /** L1 evictions per JFR period that count as a burst worth a {@code CacheEvictionBurst} event. */
+    @Min(0)
+    private long evictionBurstThreshold;
+
+    private final L2 l2 = new L2();
+    private final Adaptive adaptive = new Adaptive();
+  }
+
+  @Data
+  public static class Adaptive {
+    /** Per-entry TTL that grows while refreshes return the same answer and shrinks when it changes. */
+    private boolean enabled;
+    @NotNull
+    private Duration minTtl;
+    @NotNull
+    private Duration maxTtl;
+    @DecimalMin("1.0")
+    private double growthFactor;
+    @Positive
+    @DecimalMax("1.0")
+    private double shrinkFactor;
+    /** How long past its expiry an entry's TTL history is kept, so its refresh can be compared against it. */
+    @NotNull
+    private Duration retention;
+    /** Bound on the TTL history side map (about 100 bytes each); unused when the L2 tier is on, which keeps history in its slots. */
+    @Positive
+    private long historyMaxSize;
+  }
+
+  @Data
+  public static class L2 {
+    private boolean enabled;
+    @Positive
+    private long capacity;
+    @Positive
+    private int slotBytes;
+    @Positive
+    private int segments;
+    @Positive
+    private int maxProbe;
+    /** Memory-map this file instead of allocating direct buffers; empty = direct memory. */
+    private String file;
   }
 
   @Data
@@ -47,6 +97,7 @@ public class AppProperties {
     private final RateLimiterProperties ratelimiter = new RateLimiterProperties();
     private final NamedProperties retry = new NamedProperties();
     private final NamedProperties circuitbreaker = new NamedProperties();
+    private final Bulk bulk = new Bulk();
 
     public void setBaseUrl(String baseUrl) {
       this.baseUrl = baseUrl != null && baseUrl.endsWith("/")
@@ -61,10 +112,118 @@ public class AppProperties {
       private String name;
     }
 
+    @Data
+    public static class Bulk {
+      /** Only for plans/stubs that expose a bulk endpoint; the free tier is one address per call. */
+      private boolean enabled;
+      @NotBlank
+      private String path;
+      /** Distinct cache misses gathered into one upstream call at most. */
+      @Positive
+      private int maxBatchSize;
+      /** How long the first miss of a batch waits for company before the batch is sent. */
+      @NotNull
+      private Duration window;
+    }
+
     @Data
     public static class NamedProperties {
       @NotBlank
       private String name;
     }
   }
+
+  @Data
+  public static class Quota {
+    private boolean enabled;
+    @NotBlank
+    private String clientHeader;
+    @NotNull
+    private Duration idleEviction;
+    @Positive
+    private long maxClients;
+    @NotBlank
+    private String defaultClass;
+    /** Upstream limiter permits kept for clients within their share; above this, over-share clients may borrow. */
+    @Min(0)
+    private int borrowHeadroom;
+    private Map<String, PriorityClass> classes = new HashMap<>();
+    /** API key → priority class name. Only listed keys identify a client; others are treated as anonymous callers by address. */
+    private Map<String, String> apiKeys = new HashMap<>();
+
+    public PriorityClass resolveClass(String name) {
+      PriorityClass pc = name != null ? classes.get(name) : null;
+      if (pc == null) {
+        pc = classes.get(defaultClass);
+      }
+      if (pc == null) {
+        throw new IllegalStateException("No quota class configured for '" + defaultClass + "'");
+      }
+      return pc;
+    }
+
+    @Data
+    public static class PriorityClass {
+      @Positive
+      private int limitForPeriod;
+      @NotNull
+      private Duration limitRefreshPeriod;
+    }
+  }
+
+  @Data
+  public static class Warmup {
+    private boolean onStartup;
+    /** Optional file of seed addresses, one per line, {@code #} for comments. */
+    private String seedFile;
+    /** Optional file the top recent addresses are written to on shutdown and read back on start. */
+    private String snapshotFile;
+    @Positive
+    private int topN;
+    /** Permits left untouched for live traffic; warm-up only fetches above this level. */
+    @Min(0)
+    private int reservePermits;
+    @NotNull
+    private Duration pollInterval;
+    @NotNull
+    private Duration recentWindow;
+    @Positive
+    private long recentMaxTracked;
+  }
+
+  @Data
+  public static class Deadline {
+    @NotBlank
+    private String header;
+    @NotNull
+    private Duration defaultTimeout;
+    @NotNull
+    private Duration max;
+    /** Path prefix → default deadline; the longest matching prefix wins. */
+    private Map<String, Duration> routes = new HashMap<>();
+  }
+
+  @Data
+  public static class Timing {
+    /** Per-stage timings in a {@code Server-Timing} response header. */
+    private boolean enabled;
+    private final Export export = new Export();
+
+    @Data
+    public static class Export {
+      /** Also send each request as OTLP/JSON spans to {@code endpoint}. */
+      private boolean enabled;
+      @NotBlank
+      private String endpoint;
+      @NotBlank
+      private String serviceName;
+      @NotNull
+      private Duration interval;
+      /** Finished requests waiting for export; further requests are dropped, not buffered. */
+      @Positive
+      private int maxQueued;
+      @Positive
+      private int maxBatch;
+    }
+  }
 }
@@ -0,0 +1,25 @@
+package com.example.ipgeo.config;
+
+import com.example.ipgeo.codec.CborSequenceEncoder;
+import com.example.ipgeo.codec.GeoLocationProtobufEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Binary response encodings for high-volume callers, picked by {@code Accept}:
+ * {@code application/cbor}, {@code application/x-jackson-smile} (registered by Spring once
+ * jackson-dataformat-smile is on the classpath) and {@code application/x-protobuf}.
+ * JSON stays the default.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CodecConfiguration implements WebFluxConfigurer {
+
+  @Override
+  public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+    configurer.customCodecs().register(new CborSequenceEncoder(new ObjectMapper(new CBORFactory()).findAndRegisterModules()));
+    configurer.customCodecs().register(new GeoLocationProtobufEncoder());
+  }
+}
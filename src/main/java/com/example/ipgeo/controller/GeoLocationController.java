@@ -2,8 +2,15 @@ package com.example.ipgeo.controller;
 
 import com.example.ipgeo.model.GeoLocationResult;
 import com.example.ipgeo.service.GeoLocationService;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -18,12 +25,48 @@ public class GeoLocationController {
 
   private final GeoLocationService service;
 
-  @GetMapping(produces = "application/json")
-  public Mono<GeoLocationResult> locate(@RequestParam String address) {
+  /**
+   * Responses carry a weak ETag of the result (the same across encodings) and a
+   * {@code max-age} equal to the cached entry's remaining TTL; a matching
+   * {@code If-None-Match} gets a 304 with no body.
+   */
+  @GetMapping(produces = {"application/json", "application/cbor", "application/x-jackson-smile", "application/x-protobuf"})
+  public Mono<ResponseEntity<GeoLocationResult>> locate(@RequestParam String address) {
     log.info("Received IP lookup request for address: {}", address);
 
     return service.locate(address)
-            .doOnNext(result -> log.info("Successfully retrieved geo data: {}", result))
+            .map(result -> ResponseEntity.ok()
+                    .eTag(etag(result))
+                    .cacheControl(cacheControl(address))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(result))
+            .doOnNext(response -> log.info("Successfully retrieved geo data: {}", response.getBody()))
             .doOnError(error -> log.error("Error retrieving geo data for {}: {}", address, error.getMessage()));
   }
+
+  private CacheControl cacheControl(String address) {
+    return service.timeToLive(address)
+            .map(ttl -> CacheControl.maxAge(Duration.ofSeconds(ttl.toSeconds())).cachePublic())
+            .orElseGet(CacheControl::noCache);
+  }
+
+  private static String etag(GeoLocationResult r) {
+    Hasher h = Hashing.murmur3_128().newHasher();
+    putString(h, r.ipAddress());
+    putString(h, r.continentName());
+    putString(h, r.countryName());
+    putString(h, r.regionName());
+    putString(h, r.cityName());
+    h.putDouble(r.latitude() == null ? Double.NaN : r.latitude());
+    h.putDouble(r.longitude() == null ? Double.NaN : r.longitude());
+    return "W/\"" + h.hash() + "\"";
+  }
+
+  private static void putString(Hasher h, String s) {
+    if (s == null) {
+      h.putInt(-1);
+    } else {
+      h.putInt(s.length()).putString(s, StandardCharsets.UTF_8);
+    }
+  }
 }
@@ -0,0 +1,39 @@
+package com.example.ipgeo.controller;
+
+import com.example.ipgeo.model.WarmupStatus;
+import com.example.ipgeo.warmup.CacheWarmupService;
+import com.example.ipgeo.warmup.WarmupSource;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/warmup")
+@RequiredArgsConstructor
+public class WarmupController {
+
+  private final CacheWarmupService warmupService;
+
+  @PostMapping(produces = "application/json")
+  public Mono<ResponseEntity<WarmupStatus>> start(
+          @RequestParam(name = "source", defaultValue = "RECENT,SNAPSHOT,FILE") Set<WarmupSource> sources) {
+    return Mono.fromSupplier(() -> ResponseEntity.accepted().body(warmupService.start(sources)));
+  }
+
+  @GetMapping(produces = "application/json")
+  public Mono<WarmupStatus> status() {
+    return Mono.fromSupplier(warmupService::status);
+  }
+
+  @DeleteMapping(produces = "application/json")
+  public Mono<WarmupStatus> cancel() {
+    return Mono.fromSupplier(warmupService::cancel);
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.ipgeo.deadline;
+
+import java.time.Duration;
+import java.util.Optional;
+import reactor.util.context.ContextView;
+
+/**
+ * Point in time after which nobody is waiting for the answer any more.
+ * Set once per request by {@link DeadlineFilter} and read back from the Reactor context
+ * by each stage that can wait (rate limiter, retries, upstream socket).
+ */
+public record Deadline(long expiresAtNanos) {
+
+  public static Deadline after(Duration timeout) {
+    return new Deadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  public static Optional<Deadline> from(ContextView ctx) {
+    return ctx.getOrEmpty(Deadline.class);
+  }
+
+  public Duration remaining() {
+    long left = expiresAtNanos - System.nanoTime();
+    return left > 0 ? Duration.ofNanos(left) : Duration.ZERO;
+  }
+
+  public boolean isExpired() {
+    return expiresAtNanos - System.nanoTime() <= 0;
+  }
+
+  /** The smaller of {@code cap} and what is left of this deadline. */
+  public Duration cap(Duration cap) {
+    Duration left = remaining();
+    return left.compareTo(cap) < 0 ? left : cap;
+  }
+}
@@ -0,0 +1,68 @@
+package com.example.ipgeo.deadline;
+
+import com.example.ipgeo.config.AppProperties;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Starts the request's {@link Deadline} clock: the client's timeout header if present
+ * (plain millis or a duration such as {@code 1500ms}/{@code 2s}), otherwise the longest
+ * matching per-route default, otherwise {@code ipgeo.deadline.default-timeout}; always
+ * capped at {@code ipgeo.deadline.max}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeadlineFilter implements WebFilter {
+
+  private final AppProperties props;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    Deadline deadline = Deadline.after(timeout(exchange));
+    return chain.filter(exchange).contextWrite(ctx -> ctx.put(Deadline.class, deadline));
+  }
+
+  private Duration timeout(ServerWebExchange exchange) {
+    AppProperties.Deadline cfg = props.getDeadline();
+    Duration timeout = fromHeader(exchange.getRequest().getHeaders().getFirst(cfg.getHeader()));
+    if (timeout == null) {
+      timeout = routeDefault(exchange.getRequest().getPath().value(), cfg);
+    }
+    return timeout.compareTo(cfg.getMax()) > 0 ? cfg.getMax() : timeout;
+  }
+
+  private static Duration fromHeader(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      Duration d = DurationStyle.detectAndParse(value.trim(), ChronoUnit.MILLIS);
+      return d.isNegative() ? Duration.ZERO : d;
+    } catch (IllegalArgumentException e) {
+      log.debug("ignoring malformed deadline header value={}", value);
+      return null;
+    }
+  }
+
+  private static Duration routeDefault(String path, AppProperties.Deadline cfg) {
+    Duration best = cfg.getDefaultTimeout();
+    int bestLength = -1;
+    for (Map.Entry<String, Duration> route : cfg.getRoutes().entrySet()) {
+      if (path.startsWith(route.getKey()) && route.getKey().length() > bestLength) {
+        best = route.getValue();
+        bestLength = route.getKey().length();
+      }
+    }
+    return best;
+  }
+}
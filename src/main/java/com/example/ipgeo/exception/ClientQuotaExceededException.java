@@ -0,0 +1,16 @@
+package com.example.ipgeo.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/** Raised when a client has used up its fair share of the upstream budget. */
+@Getter
+public class ClientQuotaExceededException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public ClientQuotaExceededException(Duration retryAfter) {
+    super("Upstream quota exceeded for client");
+    this.retryAfter = retryAfter;
+  }
+}
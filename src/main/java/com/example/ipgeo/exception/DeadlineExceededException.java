@@ -0,0 +1,9 @@
+package com.example.ipgeo.exception;
+
+/** The caller's request deadline passed before an answer was ready; remaining work is abandoned. */
+public class DeadlineExceededException extends RuntimeException {
+
+  public DeadlineExceededException(String message) {
+    super(message);
+  }
+}
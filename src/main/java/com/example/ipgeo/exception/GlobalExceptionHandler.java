@@ -22,6 +22,21 @@ public class GlobalExceptionHandler {
     h.add("Retry-After", String.valueOf(props.getBackpressure().getRetryAfterSeconds()));
     return new ResponseEntity<>("Too Many Requests - please retry later", h, HttpStatus.TOO_MANY_REQUESTS);
   }
+  @ExceptionHandler(ClientQuotaExceededException.class)
+  public ResponseEntity<String> quotaExceeded(ClientQuotaExceededException ex) {
+    long seconds = Math.max(props.getBackpressure().getRetryAfterSeconds(), (ex.getRetryAfter().toMillis() + 999) / 1000);
+    HttpHeaders h = new HttpHeaders();
+    h.add("Retry-After", String.valueOf(seconds));
+    return new ResponseEntity<>("Too Many Requests - client quota exhausted, please retry later", h, HttpStatus.TOO_MANY_REQUESTS);
+  }
+  @ExceptionHandler(DeadlineExceededException.class)
+  public ResponseEntity<String> deadlineExceeded(DeadlineExceededException ex) {
+    return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(ex.getMessage());
+  }
+  @ExceptionHandler(UpstreamAnswerMissingException.class)
+  public ResponseEntity<String> upstreamMissing(UpstreamAnswerMissingException ex) {
+    return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Upstream provider error: " + ex.getMessage());
+  }
   @ExceptionHandler(WebClientResponseException.class)
   public ResponseEntity<String> upstream(WebClientResponseException ex) {
     return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Upstream provider error: " + ex.getMessage());
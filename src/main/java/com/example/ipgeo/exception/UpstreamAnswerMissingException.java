@@ -0,0 +1,9 @@
+package com.example.ipgeo.exception;
+
+/** The provider answered, but not for this address (e.g. it was left out of a bulk response). */
+public class UpstreamAnswerMissingException extends RuntimeException {
+
+  public UpstreamAnswerMissingException(String message) {
+    super(message);
+  }
+}
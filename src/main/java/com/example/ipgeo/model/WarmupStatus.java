@@ -0,0 +1,18 @@
+package com.example.ipgeo.model;
+
+import java.time.Instant;
+
+public record WarmupStatus(
+        State state,
+        int total,
+        int completed,
+        int skipped,
+        int failed,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {
+  public enum State { IDLE, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+  public static final WarmupStatus IDLE = new WarmupStatus(State.IDLE, 0, 0, 0, 0, null, null, null);
+}
@@ -0,0 +1,36 @@
+package com.example.ipgeo.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic: L1 evictions since the previous period, committed only when they reach the burst
+ * threshold. Recording settings can change the period ({@code 1 s} by default).
+ */
+@Name("com.example.ipgeo.CacheEvictionBurst")
+@Label("Cache Eviction Burst")
+@Category({"IP Geolocation", "Cache"})
+@Description("L1 cache evictions in one period that reached the configured burst threshold")
+@Period("1 s")
+@StackTrace(false)
+public class CacheEvictionBurstEvent extends jdk.jfr.Event {
+
+  @Label("Size Evictions")
+  long size;
+
+  @Label("Expirations")
+  long expired;
+
+  @Label("Threshold")
+  long threshold;
+
+  public CacheEvictionBurstEvent(long size, long expired, long threshold) {
+    this.size = size;
+    this.expired = expired;
+    this.threshold = threshold;
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.ipgeo.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One {@code GET /ip} lookup, from the service call until the caller has its answer. */
+@Name("com.example.ipgeo.Lookup")
+@Label("Geo Lookup")
+@Category({"IP Geolocation", "Lookup"})
+@Description("How a lookup was served: cache hit, upstream miss, joined in-flight lookup, or rejected")
+@StackTrace(false)
+public class LookupEvent extends jdk.jfr.Event {
+
+  public enum Outcome { HIT, MISS, COALESCED, REJECTED }
+
+  @Label("IP Address")
+  String ip;
+
+  @Label("Outcome")
+  String outcome;
+
+  @Label("Error")
+  @Description("Exception type if the lookup failed")
+  String error;
+
+  public LookupEvent(String ip) {
+    this.ip = ip;
+  }
+
+  public void outcome(Outcome outcome) {
+    this.outcome = outcome.name();
+  }
+
+  public void failed(Throwable t) {
+    this.error = t.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.ipgeo.observability;
+
+import com.example.ipgeo.config.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Ships finished requests as OpenTelemetry spans (OTLP/HTTP JSON) to a local collector: one
+ * server span per request, with one child span per recorded stage. Requests are queued and
+ * sent in batches off the request path; when the queue is full, new requests are dropped.
+ */
+@Slf4j
+@Component
+public class OtlpSpanExporter {
+
+  private static final int SPAN_KIND_SERVER = 2;
+  private static final int SPAN_KIND_INTERNAL = 1;
+  private static final int STATUS_ERROR = 2;
+
+  private final AppProperties.Timing.Export cfg;
+  private final WebClient client;
+  private final BlockingQueue<Finished> queue;
+  private Disposable flusher;
+
+  public OtlpSpanExporter(AppProperties props, WebClient.Builder builder) {
+    this.cfg = props.getTiming().getExport();
+    this.client = builder.build();
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, cfg.getMaxQueued()));
+  }
+
+  @PostConstruct
+  void start() {
+    if (cfg.isEnabled()) {
+      flusher = Flux.interval(cfg.getInterval())
+              .onBackpressureDrop()
+              .concatMap(tick -> flush())
+              .subscribe();
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (flusher != null) {
+      flusher.dispose();
+      flush().block(cfg.getInterval());
+    }
+  }
+
+  void offer(RequestTimings timings, String name, HttpStatusCode status) {
+    if (cfg.isEnabled()) {
+      queue.offer(new Finished(timings, name, status == null ? 200 : status.value(), System.nanoTime()));
+    }
+  }
+
+  /** Sends everything queued, in batches of {@code max-batch}; failures are logged and dropped. */
+  public Mono<Void> flush() {
+    return Flux.<List<Finished>>generate(sink -> {
+              List<Finished> batch = new ArrayList<>();
+              queue.drainTo(batch, cfg.getMaxBatch());
+              if (batch.isEmpty()) {
+                sink.complete();
+              } else {
+                sink.next(batch);
+              }
+            })
+            .concatMap(batch -> client.post()
+                    .uri(cfg.getEndpoint())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(payload(batch))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .doOnError(e -> log.debug("span export failed batch={} err={}", batch.size(), e.toString()))
+                    .onErrorResume(e -> Mono.empty()))
+            .then();
+  }
+
+  private Map<String, Object> payload(List<Finished> batch) {
+    List<Map<String, Object>> spans = new ArrayList<>();
+    for (Finished f : batch) {
+      RequestTimings t = f.timings();
+      String rootId = RequestTimings.randomHex(1);
+      spans.add(span(t.traceId(), rootId, t.parentSpanId(), f.name(), SPAN_KIND_SERVER,
+              t.toEpochNanos(t.startNanos()), t.toEpochNanos(f.endNanos()),
+              List.of(attribute("http.response.status_code", Map.of("intValue", f.status()))), f.status() >= 500));
+      for (RequestTimings.Stage stage : t.stages()) {
+        spans.add(span(t.traceId(), RequestTimings.randomHex(1), rootId, stage.name(), SPAN_KIND_INTERNAL,
+                t.toEpochNanos(stage.startNanos()), t.toEpochNanos(stage.startNanos() + stage.durationNanos()),
+                List.of(), false));
+      }
+    }
+    return Map.of("resourceSpans", List.of(Map.of(
+            "resource", Map.of("attributes", List.of(attribute("service.name", Map.of("stringValue", cfg.getServiceName())))),
+            "scopeSpans", List.of(Map.of(
+                    "scope", Map.of("name", "com.example.ipgeo"),
+                    "spans", spans)))));
+  }
+
+  private static Map<String, Object> span(String traceId, String spanId, String parentSpanId, String name, int kind,
+                                          long startEpochNanos, long endEpochNanos,
+                                          List<Map<String, Object>> attributes, boolean error) {
+    return Map.of(
+            "traceId", traceId,
+            "spanId", spanId,
+            "parentSpanId", parentSpanId == null ? "" : parentSpanId,
+            "name", name,
+            "kind", kind,
+            "startTimeUnixNano", Long.toString(startEpochNanos),
+            "endTimeUnixNano", Long.toString(endEpochNanos),
+            "attributes", attributes,
+            "status", error ? Map.of("code", STATUS_ERROR) : Map.of());
+  }
+
+  private static Map<String, Object> attribute(String key, Map<String, Object> value) {
+    return Map.of("key", key, "value", value);
+  }
+
+  private record Finished(RequestTimings timings, String name, int status, long endNanos) {}
+}
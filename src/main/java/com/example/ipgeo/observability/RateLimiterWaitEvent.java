@@ -0,0 +1,28 @@
+package com.example.ipgeo.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Time spent queued for an upstream limiter permit; only emitted when there was a wait or a rejection. */
+@Name("com.example.ipgeo.RateLimiterWait")
+@Label("Rate Limiter Wait")
+@Category({"IP Geolocation", "Upstream"})
+@StackTrace(false)
+public class RateLimiterWaitEvent extends jdk.jfr.Event {
+
+  @Label("Limiter")
+  String limiter;
+
+  @Label("Rejected")
+  boolean rejected;
+
+  public RateLimiterWaitEvent(String limiter) {
+    this.limiter = limiter;
+  }
+
+  public void rejected() {
+    this.rejected = true;
+  }
+}
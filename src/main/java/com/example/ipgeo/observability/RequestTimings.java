@@ -0,0 +1,221 @@
+package com.example.ipgeo.observability;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Per-request stage timings, carried in the Reactor context by {@link ServerTimingFilter}.
+ * Stages are recorded as {@code (name, start, duration)} into small parallel arrays, so the
+ * cache-hit path costs two {@link System#nanoTime()} pairs and no formatting; the
+ * {@code Server-Timing} header is only built when the response commits, and the trace id only
+ * when the span exporter asks for it.
+ */
+public final class RequestTimings {
+
+  /** Used when no filter installed timings, e.g. warm-up or unit tests; records nothing. */
+  public static final RequestTimings NONE = new RequestTimings(null);
+
+  private static final int INITIAL_STAGES = 8;
+
+  private final long startNanos = System.nanoTime();
+  private final long startEpochNanos = System.currentTimeMillis() * 1_000_000L;
+  private final String traceparent;
+  private String traceId;
+  private String parentSpanId;
+  private String[] names;
+  private long[] starts;
+  private long[] durations;
+  private int size;
+
+  private RequestTimings(String traceparent) {
+    this.traceparent = traceparent;
+  }
+
+  /**
+   * Starts timing a request that continues the trace named by a W3C {@code traceparent} header,
+   * if it is well-formed, or else a new one; either is only resolved if the request is exported.
+   */
+  public static RequestTimings start(String traceparent) {
+    return new RequestTimings(traceparent);
+  }
+
+  public static RequestTimings from(ContextView ctx) {
+    return ctx.getOrDefault(RequestTimings.class, NONE);
+  }
+
+  /** Records a stage that started at {@code startNanos} and ends now. */
+  public void record(String stage, long startNanos) {
+    if (this == NONE) {
+      return;
+    }
+    long now = System.nanoTime();
+    synchronized (this) {
+      if (names == null) {
+        names = new String[INITIAL_STAGES];
+        starts = new long[INITIAL_STAGES];
+        durations = new long[INITIAL_STAGES];
+      } else if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+        starts = Arrays.copyOf(starts, size * 2);
+        durations = Arrays.copyOf(durations, size * 2);
+      }
+      names[size] = stage;
+      starts[size] = startNanos;
+      durations[size] = now - startNanos;
+      size++;
+    }
+  }
+
+  /**
+   * For {@link Mono#transform}: records a stage that started at {@code startNanos} and ends when
+   * the source succeeds, fails or is cancelled. Unlike {@code doFinally}, the stage is recorded
+   * before the signal travels downstream, so a response committed from that signal includes it.
+   */
+  public <T> Function<Mono<T>, Mono<T>> stage(String stage, long startNanos) {
+    if (this == NONE) {
+      return Function.identity();
+    }
+    return source -> Mono.defer(() -> {
+      AtomicBoolean done = new AtomicBoolean();
+      Runnable end = () -> {
+        if (done.compareAndSet(false, true)) {
+          record(stage, startNanos);
+        }
+      };
+      return source.doOnSuccess(value -> end.run()).doOnError(e -> end.run()).doOnCancel(end);
+    });
+  }
+
+  /**
+   * {@code Server-Timing} value: one metric per stage name, durations summed, with the number
+   * of occurrences as {@code desc} when a stage repeated (retried upstream attempts), plus
+   * {@code total} for the request so far.
+   */
+  public synchronized String serverTiming() {
+    StringBuilder header = new StringBuilder(32 + size * 24);
+    boolean[] done = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      if (done[i]) {
+        continue;
+      }
+      long total = durations[i];
+      int count = 1;
+      for (int j = i + 1; j < size; j++) {
+        if (!done[j] && names[j].equals(names[i])) {
+          total += durations[j];
+          count++;
+          done[j] = true;
+        }
+      }
+      appendMetric(header, names[i], total);
+      if (count > 1) {
+        header.append(";desc=\"").append(count).append("x\"");
+      }
+      header.append(", ");
+    }
+    appendMetric(header, "total", System.nanoTime() - startNanos);
+    return header.toString();
+  }
+
+  private static void appendMetric(StringBuilder header, String name, long nanos) {
+    long micros = nanos / 1_000;
+    header.append(name).append(";dur=").append(micros / 1_000).append('.');
+    long fraction = micros % 1_000;
+    if (fraction < 100) {
+      header.append(fraction < 10 ? "00" : "0");
+    }
+    header.append(fraction);
+  }
+
+  synchronized String traceId() {
+    resolveTrace();
+    return traceId;
+  }
+
+  synchronized String parentSpanId() {
+    resolveTrace();
+    return parentSpanId;
+  }
+
+  private void resolveTrace() {
+    if (traceId != null) {
+      return;
+    }
+    if (isValidTraceparent(traceparent)) {
+      traceId = traceparent.substring(3, 35);
+      parentSpanId = traceparent.substring(36, 52);
+    } else {
+      traceId = randomHex(2);
+    }
+  }
+
+  /**
+   * {@code version-traceid-parentid-flags} in lower-case hex, as W3C Trace Context defines it:
+   * version {@code ff} is invalid, and an all-zero trace or parent id means "no trace".
+   * Later versions may append fields after the flags.
+   */
+  static boolean isValidTraceparent(String header) {
+    if (header == null || header.length() < 55 || (header.length() > 55 && header.charAt(55) != '-')) {
+      return false;
+    }
+    if (header.charAt(2) != '-' || header.charAt(35) != '-' || header.charAt(52) != '-') {
+      return false;
+    }
+    if (!isLowerHex(header, 0, 2) || header.startsWith("ff")
+            || (header.startsWith("00") && header.length() != 55)) {
+      return false;
+    }
+    return isLowerHex(header, 3, 35) && !isZeros(header, 3, 35)
+            && isLowerHex(header, 36, 52) && !isZeros(header, 36, 52)
+            && isLowerHex(header, 53, 55);
+  }
+
+  private static boolean isLowerHex(String s, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isZeros(String s, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (s.charAt(i) != '0') {
+        return false;
+      }
+    }
+    return true;
+  }
+  long startNanos() { return startNanos; }
+
+  /** Wall-clock epoch nanos of a {@link System#nanoTime()} reading taken during this request. */
+  long toEpochNanos(long nanoTime) {
+    return startEpochNanos + (nanoTime - startNanos);
+  }
+
+  synchronized Stage[] stages() {
+    Stage[] out = new Stage[size];
+    for (int i = 0; i < size; i++) {
+      out[i] = new Stage(names[i], starts[i], durations[i]);
+    }
+    return out;
+  }
+
+  record Stage(String name, long startNanos, long durationNanos) {}
+
+  static String randomHex(int longs) {
+    StringBuilder hex = new StringBuilder(longs * 16);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < longs; i++) {
+      String part = Long.toHexString(random.nextLong());
+      hex.append("0".repeat(16 - part.length())).append(part);
+    }
+    return hex.toString();
+  }
+}
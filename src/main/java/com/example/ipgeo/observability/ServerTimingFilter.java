@@ -0,0 +1,41 @@
+package com.example.ipgeo.observability;
+
+import com.example.ipgeo.config.AppProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Installs {@link RequestTimings} in the Reactor context, writes them as a {@code Server-Timing}
+ * header just before the response commits, and hands the finished request to the span exporter.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServerTimingFilter implements WebFilter {
+
+  static final String HEADER = "Server-Timing";
+
+  private final AppProperties props;
+  private final OtlpSpanExporter exporter;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!props.getTiming().isEnabled()) {
+      return chain.filter(exchange);
+    }
+    RequestTimings timings = RequestTimings.start(exchange.getRequest().getHeaders().getFirst("traceparent"));
+    ServerHttpResponse response = exchange.getResponse();
+    response.beforeCommit(() -> {
+      response.getHeaders().add(HEADER, timings.serverTiming());
+      return Mono.empty();
+    });
+    return chain.filter(exchange)
+            .contextWrite(ctx -> ctx.put(RequestTimings.class, timings))
+            .doFinally(sig -> exporter.offer(timings, exchange.getRequest().getMethod().name() + " "
+                    + exchange.getRequest().getPath().value(), response.getStatusCode()));
+  }
+}
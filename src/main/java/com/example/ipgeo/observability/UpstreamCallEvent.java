@@ -0,0 +1,50 @@
+package com.example.ipgeo.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One HTTP attempt against the geolocation provider; retries are separate events. */
+@Name("com.example.ipgeo.UpstreamCall")
+@Label("Upstream Call")
+@Category({"IP Geolocation", "Upstream"})
+@StackTrace(false)
+public class UpstreamCallEvent extends jdk.jfr.Event {
+
+  @Label("Target")
+  @Description("ip=<address> or bulk size=<n>")
+  String target;
+
+  @Label("Attempt")
+  int attempt;
+
+  @Label("HTTP Status")
+  @Description("0 when no response arrived (connect error, timeout, cancellation)")
+  int status;
+
+  @Label("Empty")
+  @Description("Response arrived but carried no answer to map")
+  boolean empty;
+
+  @Label("Error")
+  String error;
+
+  public UpstreamCallEvent(String target, int attempt) {
+    this.target = target;
+    this.attempt = attempt;
+  }
+
+  public void status(int status) {
+    this.status = status;
+  }
+
+  public void empty() {
+    this.empty = true;
+  }
+
+  public void failed(Throwable t) {
+    this.error = t.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,159 @@
+package com.example.ipgeo.provider;
+
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.deadline.Deadline;
+import com.example.ipgeo.exception.DeadlineExceededException;
+import com.example.ipgeo.exception.UpstreamAnswerMissingException;
+import com.example.ipgeo.model.GeoLocationResult;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
+
+/**
+ * Micro-batches distinct cache misses into bulk upstream calls. The first miss of a batch
+ * opens a short window ({@code freeipapi.bulk.window}); the batch is sent when the window
+ * closes or it reaches {@code max-batch-size}, whichever comes first, and each waiting
+ * {@code Mono} gets its own answer. Providers without bulk support are passed straight through.
+ */
+@Slf4j
+@Primary
+@Component
+public class BulkLookupDispatcher implements GeoProvider {
+
+  private final GeoProvider delegate;
+  private final AppProperties props;
+  private final Scheduler scheduler;
+  private final Object lock = new Object();
+  private List<Pending> batch = new ArrayList<>();
+
+  @Autowired
+  public BulkLookupDispatcher(@Qualifier("freeIpApiProvider") GeoProvider delegate, AppProperties props) {
+    this(delegate, props, Schedulers.parallel());
+  }
+
+  public BulkLookupDispatcher(GeoProvider delegate, AppProperties props, Scheduler scheduler) {
+    this.delegate = delegate;
+    this.props = props;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public Mono<GeoLocationResult> fetch(String ipAddress) {
+    if (!delegate.supportsBulk()) {
+      return delegate.fetch(ipAddress);
+    }
+    Mono<GeoLocationResult> answer = Mono.create(sink -> enqueue(new Pending(ipAddress, sink)));
+    return Mono.deferContextual(ctx -> Deadline.from(ctx)
+            .map(d -> answer.timeout(d.remaining(),
+                    Mono.error(() -> new DeadlineExceededException("Deadline passed while waiting for bulk lookup of " + ipAddress))))
+            .orElse(answer));
+  }
+
+  @Override
+  public boolean supportsBulk() {
+    return delegate.supportsBulk();
+  }
+
+  @Override
+  public Mono<Map<String, GeoLocationResult>> fetchAll(List<String> ipAddresses) {
+    return delegate.fetchAll(ipAddresses);
+  }
+
+  private void enqueue(Pending pending) {
+    AppProperties.Freeipapi.Bulk cfg = props.getFreeipapi().getBulk();
+    List<Pending> full = null;
+    List<Pending> opened = null;
+    synchronized (lock) {
+      batch.add(pending);
+      if (batch.size() >= cfg.getMaxBatchSize()) {
+        full = batch;
+        batch = new ArrayList<>();
+      } else if (batch.size() == 1) {
+        opened = batch;
+      }
+    }
+    if (full != null) {
+      dispatch(full);
+    } else if (opened != null) {
+      List<Pending> window = opened;
+      scheduler.schedule(() -> closeWindow(window), cfg.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Sends the batch the window was opened for, unless it already went out for being full. */
+  private void closeWindow(List<Pending> window) {
+    synchronized (lock) {
+      if (batch != window) {
+        return;
+      }
+      batch = new ArrayList<>();
+    }
+    dispatch(window);
+  }
+
+  private void dispatch(List<Pending> pendings) {
+    Map<String, List<Pending>> byIp = new LinkedHashMap<>();
+    for (Pending p : pendings) {
+      byIp.computeIfAbsent(p.ip(), k -> new ArrayList<>(1)).add(p);
+    }
+    ContextView ctx = longestLived(pendings);
+    if (byIp.size() == 1) {
+      String ip = pendings.get(0).ip();
+      delegate.fetch(ip)
+              .contextWrite(ctx)
+              .subscribe(r -> pendings.forEach(p -> p.sink().success(r)),
+                         e -> pendings.forEach(p -> p.sink().error(e)),
+                         () -> pendings.forEach(p -> p.sink().success()));
+      return;
+    }
+    log.debug("geo.bulk dispatch distinct={} waiters={}", byIp.size(), pendings.size());
+    delegate.fetchAll(new ArrayList<>(byIp.keySet()))
+            .defaultIfEmpty(Map.of())
+            .contextWrite(ctx)
+            .subscribe(results -> byIp.forEach((ip, waiters) -> {
+                      GeoLocationResult r = results.get(ip);
+                      if (r != null) {
+                        waiters.forEach(p -> p.sink().success(r));
+                      } else {
+                        UpstreamAnswerMissingException missing = new UpstreamAnswerMissingException("No bulk answer for " + ip);
+                        waiters.forEach(p -> p.sink().error(missing));
+                      }
+                    }),
+                    e -> pendings.forEach(p -> p.sink().error(e)));
+  }
+
+  /**
+   * The bulk call must live as long as its most patient waiter: use that waiter's context.
+   * Less patient waiters stop at their own deadline via the timeout in {@link #fetch}.
+   */
+  private static ContextView longestLived(List<Pending> pendings) {
+    ContextView best = null;
+    long bestExpiry = 0;
+    for (Pending p : pendings) {
+      ContextView ctx = p.sink().contextView();
+      Deadline d = ctx.getOrDefault(Deadline.class, null);
+      if (d == null) {
+        return ctx;
+      }
+      if (best == null || d.expiresAtNanos() - bestExpiry > 0) {
+        best = ctx;
+        bestExpiry = d.expiresAtNanos();
+      }
+    }
+    return best;
+  }
+
+  private record Pending(String ip, MonoSink<GeoLocationResult> sink) {}
+}
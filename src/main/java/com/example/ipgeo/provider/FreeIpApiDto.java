@@ -3,6 +3,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FreeIpApiDto {
+  @JsonProperty("ipAddress") public String ipAddress;
   @JsonProperty("continent") public String continent;
   @JsonProperty("countryName") public String countryName;
   @JsonProperty("regionName") public String regionName;
@@ -1,11 +1,18 @@
 package com.example.ipgeo.provider;
 
 import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.deadline.Deadline;
+import com.example.ipgeo.exception.DeadlineExceededException;
 import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.observability.RateLimiterWaitEvent;
+import com.example.ipgeo.observability.RequestTimings;
+import com.example.ipgeo.observability.UpstreamCallEvent;
 import com.example.ipgeo.ratelimit.RateLimiterService;
+import com.google.common.net.InetAddresses;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
-import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.github.resilience4j.reactor.retry.RetryOperator;
 import io.github.resilience4j.retry.RetryRegistry;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +22,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
 
 @Slf4j
 @Component
@@ -29,36 +44,190 @@ public class FreeIpApiProvider implements GeoProvider {
 
   @Override
   public Mono<GeoLocationResult> fetch(String ip) {
+    return resilient("ip=" + ip, (responseTimeout, call) -> callUpstream(ip, responseTimeout, call));
+  }
 
-    boolean rlEnabled = rateLimiterService.isEnabled();
+  @Override
+  public boolean supportsBulk() {
+    return props.getFreeipapi().getBulk().isEnabled();
+  }
+
+  /** One bulk upstream call, so one limiter permit, for the whole list. */
+  @Override
+  public Mono<Map<String, GeoLocationResult>> fetchAll(List<String> ips) {
+    return resilient("bulk size=" + ips.size(), (responseTimeout, call) -> callBulkUpstream(ips, responseTimeout, call));
+  }
+
+  /**
+   * Every stage only spends what is left of the caller's {@link Deadline} (if one is in the
+   * Reactor context): the limiter wait, each attempt's response timeout, and the overall
+   * timeout that also bounds retry backoff. Once it has passed, no further upstream call starts.
+   */
+  private <T> Mono<T> resilient(String what, BiFunction<Optional<Duration>, UpstreamCallEvent, Mono<T>> upstream) {
     String retryName = props.getFreeipapi().getRetry().getName();
     String breakerName = props.getFreeipapi().getCircuitbreaker().getName();
+    Duration timeout = props.getFreeipapi().getTimeout();
+
+    return Mono.deferContextual(ctx -> {
+      Optional<Deadline> deadline = Deadline.from(ctx);
+      if (deadline.isPresent() && deadline.get().isExpired()) {
+        return Mono.<T>error(new DeadlineExceededException("Deadline passed before upstream lookup of " + what));
+      }
+      Duration budget = deadline.map(d -> d.cap(timeout)).orElse(timeout);
+      RequestTimings timings = RequestTimings.from(ctx);
+      long[] lastFailure = {0};
+      int[] attempts = {0};
+
+      Mono<T> attempt = Mono.defer(() -> {
+        if (lastFailure[0] != 0) {
+          timings.record("retry", lastFailure[0]); // backoff since the previous attempt failed
+        }
+        if (deadline.isPresent() && deadline.get().isExpired()) {
+          return Mono.error(new DeadlineExceededException("Deadline passed before upstream attempt for " + what));
+        }
+        long permitStart = System.nanoTime();
+        return acquirePermit(deadline.map(d -> d.cap(budget)).orElse(budget))
+                .transform(timings.stage("ratelimit", permitStart))
+                .then(Mono.defer(() -> {
+                  long callStart = System.nanoTime();
+                  UpstreamCallEvent call = new UpstreamCallEvent(what, ++attempts[0]);
+                  call.begin();
+                  return upstream.apply(deadline.map(Deadline::remaining), call)
+                          .doOnSuccess(r -> {
+                            if (r == null) {
+                              call.empty();
+                            }
+                          })
+                          .doOnError(call::failed)
+                          .transform(timings.stage("upstream", callStart))
+                          .doFinally(sig -> call.commit());
+                }));
+      });
 
-    Mono<GeoLocationResult> call = callUpstream(ip);
+      Mono<T> guarded = attempt
+              .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(breakerName)))
+              .doOnError(e -> lastFailure[0] = System.nanoTime())
+              .transformDeferred(RetryOperator.of(retryRegistry.retry(retryName)));
+      return budget.compareTo(timeout) < 0
+              ? guarded.timeout(budget, Mono.error(() -> new DeadlineExceededException("Deadline passed during upstream lookup of " + what)))
+              : guarded.timeout(budget);
+    })
+            .doOnSubscribe(s -> log.debug("geo.fetch start {}", what))
+            .doOnSuccess(r -> log.debug("geo.fetch ok {}", what))
+            .doOnError(e -> log.warn("geo.fetch fail {} err={}", what, e.toString()));
+  }
 
-    if (rlEnabled) {
-      call = call.transformDeferred(RateLimiterOperator.of(rateLimiterService.get()));
+  /**
+   * Takes a limiter permit, waiting at most {@code maxWait}. The limiter only reserves a permit
+   * when it can hand it out within its timeout, so that check is made against {@code maxWait}
+   * when the caller's deadline is the tighter bound: a caller who would give up first is turned
+   * away without spending a permit the next period could have served. That rejection is the
+   * caller's deadline running out, so it surfaces as {@link DeadlineExceededException}; only the
+   * limiter's own timeout is {@link RequestNotPermitted}.
+   */
+  private Mono<Void> acquirePermit(Duration maxWait) {
+    if (!rateLimiterService.isEnabled()) {
+      return Mono.empty();
+    }
+    RateLimiter limiter = rateLimiterService.get();
+    RateLimiterWaitEvent event = new RateLimiterWaitEvent(limiter.getName());
+    event.begin();
+    boolean deadlineBound;
+    long waitNanos;
+    synchronized (limiter) { // the timeout is limiter-wide; hold it at this caller's bound only for its own reservation
+      Duration configured = limiter.getRateLimiterConfig().getTimeoutDuration();
+      deadlineBound = maxWait.compareTo(configured) < 0;
+      if (deadlineBound) {
+        limiter.changeTimeoutDuration(maxWait);
+      }
+      try {
+        waitNanos = limiter.reservePermission();
+      } finally {
+        if (deadlineBound) {
+          limiter.changeTimeoutDuration(configured);
+        }
+      }
+    }
+    if (waitNanos < 0) {
+      return rejected(event, deadlineBound
+              ? new DeadlineExceededException("Deadline cannot cover rate limiter wait of " + limiter.getName())
+              : RequestNotPermitted.createRequestNotPermitted(limiter));
     }
+    return waitNanos == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos)).doFinally(sig -> event.commit()).then();
+  }
 
-    return call
-            .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(breakerName)))
-            .transformDeferred(RetryOperator.of(retryRegistry.retry(retryName)))
-            .timeout(props.getFreeipapi().getTimeout())
-            .doOnSubscribe(s -> log.debug("geo.fetch start ip={}", ip))
-            .doOnSuccess(r -> log.debug("geo.fetch ok ip={}", ip))
-            .doOnError(e -> log.warn("geo.fetch fail ip={} err={}", ip, e.toString()));
+  private static Mono<Void> rejected(RateLimiterWaitEvent event, RuntimeException error) {
+    event.rejected();
+    event.commit();
+    return Mono.error(error);
   }
 
-  private Mono<GeoLocationResult> callUpstream(String ip) {
+  private Mono<GeoLocationResult> callUpstream(String ip, Optional<Duration> responseTimeout, UpstreamCallEvent call) {
     return freeIpApiWebClient
             .get()
             .uri("/{ip}", ip)
-            .exchangeToMono(resp -> resp.statusCode().is2xxSuccessful()
-                    ? resp.bodyToMono(FreeIpApiDto.class).map(dto -> toResult(ip, dto))
-                    : toError(resp, ip));
+            .httpRequest(req -> {
+              if (responseTimeout.isPresent() && req.getNativeRequest() instanceof HttpClientRequest nettyRequest) {
+                nettyRequest.responseTimeout(responseTimeout.get());
+              }
+            })
+            .exchangeToMono(resp -> {
+              call.status(resp.statusCode().value());
+              return resp.statusCode().is2xxSuccessful()
+                      ? resp.bodyToMono(FreeIpApiDto.class).map(dto -> toResult(ip, dto))
+                      : toError(resp, ip);
+            });
+  }
+
+  private Mono<Map<String, GeoLocationResult>> callBulkUpstream(List<String> ips, Optional<Duration> responseTimeout,
+                                                                UpstreamCallEvent call) {
+    return freeIpApiWebClient
+            .post()
+            .uri(props.getFreeipapi().getBulk().getPath())
+            .bodyValue(ips)
+            .httpRequest(req -> {
+              if (responseTimeout.isPresent() && req.getNativeRequest() instanceof HttpClientRequest nettyRequest) {
+                nettyRequest.responseTimeout(responseTimeout.get());
+              }
+            })
+            .exchangeToMono(resp -> {
+              call.status(resp.statusCode().value());
+              return resp.statusCode().is2xxSuccessful()
+                      ? resp.bodyToMono(FreeIpApiDto[].class).map(dtos -> toResults(ips, dtos))
+                      : toError(resp, "bulk of " + ips.size());
+            });
+  }
+
+  /**
+   * Matches answers by their {@code ipAddress}, compared in canonical form so that a differently
+   * spelled echo of a requested address (compressed IPv6, other hex case) still finds its waiter;
+   * results are keyed by the address as requested. Request order is only trusted when the response
+   * has exactly one answer per requested address; otherwise an answer without {@code ipAddress} is
+   * dropped and its address left unanswered, rather than risk caching it under the wrong address.
+   */
+  private Map<String, GeoLocationResult> toResults(List<String> ips, FreeIpApiDto[] dtos) {
+    Map<String, String> requested = new HashMap<>(ips.size() * 2);
+    for (String ip : ips) {
+      requested.put(canonical(ip), ip);
+    }
+    Map<String, GeoLocationResult> results = new HashMap<>(dtos.length * 2);
+    boolean positional = dtos.length == ips.size();
+    for (int i = 0; i < dtos.length; i++) {
+      String ip = dtos[i].ipAddress != null ? requested.get(canonical(dtos[i].ipAddress)) : positional ? ips.get(i) : null;
+      if (ip != null) {
+        results.put(ip, toResult(ip, dtos[i]));
+      }
+    }
+    return results;
+  }
+
+  /** Canonical text form of an address, or the input itself if it is not one. */
+  private static String canonical(String ip) {
+    String trimmed = ip.trim();
+    return InetAddresses.isInetAddress(trimmed) ? InetAddresses.toAddrString(InetAddresses.forString(trimmed)) : trimmed;
   }
 
-  private Mono<GeoLocationResult> toError(ClientResponse resp, String ip) {
+  private <T> Mono<T> toError(ClientResponse resp, String ip) {
     return resp.bodyToMono(String.class)
             .defaultIfEmpty("")
             .flatMap(body -> {
@@ -1,6 +1,14 @@
 package com.example.ipgeo.provider;
 import com.example.ipgeo.model.GeoLocationResult;
+import java.util.List;
+import java.util.Map;
 import reactor.core.publisher.Mono;
 public interface GeoProvider {
   Mono<GeoLocationResult> fetch(String ipAddress);
-}
\ No newline at end of file
+  /** Whether {@link #fetchAll} is backed by a real bulk upstream call. */
+  default boolean supportsBulk() { return false; }
+  /** Looks up several addresses in one upstream call, keyed by address; addresses absent from the map had no answer. */
+  default Mono<Map<String, GeoLocationResult>> fetchAll(List<String> ipAddresses) {
+    return Mono.error(new UnsupportedOperationException(getClass().getSimpleName() + " has no bulk lookup"));
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.ipgeo.ratelimit;
+
+/**
+ * Caller identity used for per-client upstream accounting.
+ * Resolved once per request by {@link ClientIdentityFilter} and carried in the Reactor context.
+ */
+public record ClientIdentity(String id, String priorityClass) {
+
+  public static final ClientIdentity ANONYMOUS = new ClientIdentity("anonymous", null);
+}
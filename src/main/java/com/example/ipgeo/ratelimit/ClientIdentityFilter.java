@@ -0,0 +1,42 @@
+package com.example.ipgeo.ratelimit;
+
+import com.example.ipgeo.config.AppProperties;
+import java.net.InetSocketAddress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the caller from the configured API key header, falling back to the remote address,
+ * and exposes it to the lookup pipeline as a {@link ClientIdentity} in the Reactor context.
+ * Only keys listed under {@code ipgeo.quota.api-keys} are trusted; any other key is ignored, so
+ * a caller cannot mint a fresh share per request by sending random keys.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientIdentityFilter implements WebFilter {
+
+  private final AppProperties props;
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    return chain.filter(exchange).contextWrite(ctx -> ctx.put(ClientIdentity.class, resolve(exchange)));
+  }
+
+  private ClientIdentity resolve(ServerWebExchange exchange) {
+    AppProperties.Quota cfg = props.getQuota();
+    String apiKey = exchange.getRequest().getHeaders().getFirst(cfg.getClientHeader());
+    if (apiKey != null && cfg.getApiKeys().containsKey(apiKey)) {
+      return new ClientIdentity("key:" + apiKey, cfg.getApiKeys().get(apiKey));
+    }
+    InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+    if (remote == null) {
+      return ClientIdentity.ANONYMOUS;
+    }
+    String host = remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    return new ClientIdentity("addr:" + host, null);
+  }
+}
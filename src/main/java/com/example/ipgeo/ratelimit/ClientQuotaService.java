@@ -0,0 +1,11 @@
+package com.example.ipgeo.ratelimit;
+
+public interface ClientQuotaService {
+  /**
+   * Tries to take one upstream permit from the client's fair share, or to borrow one while
+   * the shared upstream limiter is not contended.
+   *
+   * @return {@code 0} when granted, otherwise the nanos until the client's next permit
+   */
+  long tryAcquire(ClientIdentity client);
+}
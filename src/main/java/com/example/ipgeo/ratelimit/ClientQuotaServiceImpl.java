@@ -0,0 +1,55 @@
+package com.example.ipgeo.ratelimit;
+
+import com.example.ipgeo.config.AppProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-client fair share of the upstream budget. Each client gets its own {@link FairShareBucket}
+ * sized by its priority class; buckets live in a Caffeine map (internally striped) and are evicted
+ * once a client has been idle for {@code ipgeo.quota.idle-eviction}.
+ *
+ * <p>Shares are work-conserving: a client past its share may still borrow while the shared
+ * upstream limiter has more than {@code ipgeo.quota.borrow-headroom} permits left, so a lone
+ * caller can use nearly the whole budget. Shares are enforced only once the limiter is contended.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientQuotaServiceImpl implements ClientQuotaService {
+
+  private final AppProperties props;
+  private final RateLimiterService rateLimiterService;
+  private Cache<String, FairShareBucket> buckets;
+
+  private Cache<String, FairShareBucket> buckets() {
+    if (buckets == null) {
+      buckets = Caffeine.newBuilder()
+              .expireAfterAccess(props.getQuota().getIdleEviction())
+              .maximumSize(props.getQuota().getMaxClients())
+              .build();
+    }
+    return buckets;
+  }
+
+  @Override
+  public long tryAcquire(ClientIdentity client) {
+    AppProperties.Quota cfg = props.getQuota();
+    if (!cfg.isEnabled()) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    FairShareBucket bucket = buckets().get(client.id(), id -> {
+      AppProperties.Quota.PriorityClass pc = cfg.resolveClass(client.priorityClass());
+      return new FairShareBucket(pc.getLimitForPeriod(), pc.getLimitRefreshPeriod(), now);
+    });
+    long waitNanos = bucket.tryAcquire(now);
+    return waitNanos > 0 && !contended(cfg) ? 0 : waitNanos;
+  }
+
+  private boolean contended(AppProperties.Quota cfg) {
+    return rateLimiterService.isEnabled()
+            && rateLimiterService.get().getMetrics().getAvailablePermissions() <= cfg.getBorrowHeadroom();
+  }
+}
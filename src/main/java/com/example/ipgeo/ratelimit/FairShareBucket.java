@@ -0,0 +1,37 @@
+package com.example.ipgeo.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in GCRA form: the whole bucket state is a single theoretical-arrival
+ * timestamp, so acquiring is one CAS and an idle bucket costs one {@link AtomicLong}.
+ * Allows {@code limitForPeriod} back-to-back permits, then one every {@code period / limitForPeriod}.
+ */
+final class FairShareBucket {
+
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final AtomicLong theoreticalArrival;
+
+  FairShareBucket(int limitForPeriod, Duration period, long nowNanos) {
+    this.emissionIntervalNanos = period.toNanos() / limitForPeriod;
+    this.burstToleranceNanos = period.toNanos() - emissionIntervalNanos;
+    this.theoreticalArrival = new AtomicLong(nowNanos);
+  }
+
+  /** @return {@code 0} when a permit was taken, otherwise the nanos until one becomes available */
+  long tryAcquire(long nowNanos) {
+    while (true) {
+      long tat = theoreticalArrival.get();
+      long start = tat - nowNanos > 0 ? tat : nowNanos;
+      long wait = (start - burstToleranceNanos) - nowNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (theoreticalArrival.compareAndSet(tat, start + emissionIntervalNanos)) {
+        return 0;
+      }
+    }
+  }
+}
@@ -1,6 +1,15 @@
 package com.example.ipgeo.service;
 import com.example.ipgeo.model.GeoLocationResult;
+import java.time.Duration;
+import java.util.Optional;
 import reactor.core.publisher.Mono;
 public interface GeoLocationService {
   Mono<GeoLocationResult> locate(String ipAddress);
+  /**
+   * Looks up an address for the cache only (warm-up): joins or starts the same in-flight lookup as
+   * {@link #locate}, but charges no client quota and does not count as a recent lookup.
+   */
+  Mono<GeoLocationResult> prefetch(String ipAddress);
+  /** How much longer the cached result for this address stays fresh, if it is cached. */
+  Optional<Duration> timeToLive(String ipAddress);
 }
\ No newline at end of file
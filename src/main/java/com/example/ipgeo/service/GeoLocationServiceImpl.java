@@ -1,14 +1,25 @@
 package com.example.ipgeo.service;
 
 import com.example.ipgeo.cache.CacheService;
+import com.example.ipgeo.deadline.Deadline;
+import com.example.ipgeo.exception.DeadlineExceededException;
+import com.example.ipgeo.exception.ClientQuotaExceededException;
 import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.observability.LookupEvent;
+import com.example.ipgeo.observability.RequestTimings;
 import com.example.ipgeo.provider.GeoProvider;
+import com.example.ipgeo.ratelimit.ClientIdentity;
+import com.example.ipgeo.ratelimit.ClientQuotaService;
+import com.example.ipgeo.warmup.RecentLookupTracker;
 import com.google.common.net.InetAddresses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
@@ -17,26 +28,97 @@ public class GeoLocationServiceImpl implements GeoLocationService {
 
   private final CacheService cacheService;
   private final GeoProvider geoProvider;
+  private final ClientQuotaService clientQuotaService;
+  private final RecentLookupTracker recentLookups;
   private final Map<String, Mono<GeoLocationResult>> ongoingLookups = new ConcurrentHashMap<>();
 
   @Override
   public Mono<GeoLocationResult> locate(String ipAddress) {
-    if (!isValidIp(ipAddress)) {
-      return Mono.error(new IllegalArgumentException("Invalid IP address format"));
+    return Mono.deferContextual(ctx -> {
+      RequestTimings timings = RequestTimings.from(ctx);
+      LookupEvent event = new LookupEvent(ipAddress);
+      event.begin();
+      long start = System.nanoTime();
+      boolean valid = isValidIp(ipAddress);
+      timings.record("validate", start);
+      if (!valid) {
+        return Mono.error(new IllegalArgumentException("Invalid IP address format"));
+      }
+      recentLookups.record(ipAddress);
+
+      start = System.nanoTime();
+      Optional<GeoLocationResult> cached = cacheService.get(ipAddress);
+      timings.record("cache", start);
+      if (cached.isPresent()) {
+        event.outcome(LookupEvent.Outcome.HIT);
+        event.commit();
+        return Mono.just(cached.get());
+      }
+      return startOrJoinLookup(ipAddress, ctx, timings, event);
+    });
+  }
+
+  @Override
+  public Mono<GeoLocationResult> prefetch(String ipAddress) {
+    return Mono.defer(() -> ongoingLookups.computeIfAbsent(ipAddress, this::newLookup));
+  }
+
+  @Override
+  public Optional<Duration> timeToLive(String ipAddress) {
+    return cacheService.timeToLive(ipAddress);
+  }
+
+  /**
+   * Whether this caller starts the upstream lookup or joins one already in flight is decided
+   * inside {@code computeIfAbsent}, so only the caller that actually creates the entry is charged
+   * client quota and counted as a miss; joining an in-flight lookup costs no upstream budget.
+   */
+  private Mono<GeoLocationResult> startOrJoinLookup(String ip, ContextView ctx, RequestTimings timings, LookupEvent event) {
+    ClientIdentity client = ctx.getOrDefault(ClientIdentity.class, ClientIdentity.ANONYMOUS);
+    long[] quotaWait = {-1}; // stays -1 when an in-flight lookup was joined
+    long start = System.nanoTime();
+    Mono<GeoLocationResult> shared = ongoingLookups.computeIfAbsent(ip, key -> {
+      quotaWait[0] = clientQuotaService.tryAcquire(client);
+      return quotaWait[0] > 0 ? null : newLookup(key);
+    });
+    if (quotaWait[0] < 0) {
+      event.outcome(LookupEvent.Outcome.COALESCED);
+      return committing(withCallerDeadline(shared), event)
+              .transform(timings.stage("coalesce", start));
+    }
+    timings.record("quota", start);
+    if (quotaWait[0] > 0) {
+      event.outcome(LookupEvent.Outcome.REJECTED);
+      event.commit();
+      return Mono.error(new ClientQuotaExceededException(Duration.ofNanos(quotaWait[0])));
     }
+    event.outcome(LookupEvent.Outcome.MISS);
+    return committing(withCallerDeadline(shared), event);
+  }
+
+  /** Ends the lookup's JFR event when this caller gets its answer (or gives up). */
+  private static Mono<GeoLocationResult> committing(Mono<GeoLocationResult> lookup, LookupEvent event) {
+    return lookup.doOnError(event::failed).doFinally(sig -> event.commit());
+  }
 
-    return Mono.justOrEmpty(cacheService.get(ipAddress))
-            .switchIfEmpty(Mono.defer(() -> startOrJoinLookup(ipAddress)));
+  /**
+   * The shared lookup serves every caller that joins it, so it must not inherit the deadline of
+   * whichever caller happened to subscribe first: it runs under the provider's own timeout only.
+   */
+  private Mono<GeoLocationResult> newLookup(String ip) {
+    return Mono.defer(() ->
+            geoProvider.fetch(ip)
+                    .doOnNext(result -> cacheService.put(ip, result))
+                    .doFinally(sig -> ongoingLookups.remove(ip))
+    ).contextWrite(ctx -> ctx.delete(Deadline.class)).cache();
   }
 
-  private Mono<GeoLocationResult> startOrJoinLookup(String ip) {
-    return ongoingLookups.computeIfAbsent(ip, key ->
-            Mono.defer(() ->
-                    geoProvider.fetch(ip)
-                            .doOnNext(result -> cacheService.put(ip, result))
-                            .doFinally(sig -> ongoingLookups.remove(key))
-            ).cache()
-    );
+  /** Each caller, initiator or joiner, stops waiting at its own deadline; the shared lookup carries on for the rest. */
+  private static Mono<GeoLocationResult> withCallerDeadline(Mono<GeoLocationResult> lookup) {
+    return Mono.deferContextual(ctx -> Deadline.from(ctx)
+            .map(d -> lookup.timeout(d.remaining(),
+                    Mono.error(() -> new DeadlineExceededException("Deadline passed while waiting for in-flight lookup"))))
+            .orElse(lookup));
   }
 
   private boolean isValidIp(String ip) {
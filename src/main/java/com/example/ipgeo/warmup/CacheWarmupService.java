@@ -0,0 +1,193 @@
+package com.example.ipgeo.warmup;
+
+import com.example.ipgeo.cache.CacheService;
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.model.WarmupStatus;
+import com.example.ipgeo.ratelimit.RateLimiterService;
+import com.example.ipgeo.service.GeoLocationService;
+import com.google.common.net.InetAddresses;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Fills the cache in the background from seed addresses, one lookup at a time, and only
+ * while the upstream limiter has permits to spare beyond {@code ipgeo.warmup.reserve-permits},
+ * so live traffic always gets the budget first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheWarmupService {
+
+  private final AppProperties props;
+  private final CacheService cacheService;
+  private final GeoLocationService geoLocationService;
+  private final RateLimiterService rateLimiterService;
+  private final RecentLookupTracker recentLookups;
+  private final AtomicReference<Job> current = new AtomicReference<>();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmOnStartup() {
+    if (props.getWarmup().isOnStartup()) {
+      start(EnumSet.of(WarmupSource.SNAPSHOT, WarmupSource.FILE));
+    }
+  }
+
+  public WarmupStatus start(Set<WarmupSource> sources) {
+    Job previous = current.get();
+    if (previous != null && previous.isRunning()) {
+      return previous.status();
+    }
+    Job job = new Job();
+    if (!current.compareAndSet(previous, job)) {
+      return current.get().status();
+    }
+    log.info("warmup.start sources={}", sources);
+    job.subscription.update(seeds(sources)
+            .doOnNext(seeds -> job.total.set(seeds.size()))
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(ip -> warm(ip, job))
+            .doFinally(sig -> job.finish(switch (sig) {
+              case CANCEL -> WarmupStatus.State.CANCELLED;
+              case ON_ERROR -> WarmupStatus.State.FAILED;
+              default -> WarmupStatus.State.COMPLETED;
+            }))
+            .subscribe(null, e -> {
+              job.error = e.toString();
+              log.warn("warmup.fail sources={} err={}", sources, e.toString());
+            }));
+    return job.status();
+  }
+
+  public WarmupStatus cancel() {
+    Job job = current.get();
+    if (job == null) {
+      return WarmupStatus.IDLE;
+    }
+    job.subscription.dispose();
+    return job.status();
+  }
+
+  public WarmupStatus status() {
+    Job job = current.get();
+    return job == null ? WarmupStatus.IDLE : job.status();
+  }
+
+  @PreDestroy
+  public void saveSnapshot() {
+    String file = props.getWarmup().getSnapshotFile();
+    if (file == null || file.isBlank()) {
+      return;
+    }
+    try {
+      Files.write(Path.of(file), recentLookups.top(props.getWarmup().getTopN()));
+    } catch (IOException e) {
+      log.warn("warmup.snapshot write failed file={} err={}", file, e.toString());
+    }
+  }
+
+  private Mono<Void> warm(String ip, Job job) {
+    return awaitSpareBudget()
+            .then(Mono.defer(() -> {
+              if (cacheService.get(ip).isPresent()) {
+                job.skipped.incrementAndGet(); // live traffic got there first
+                return Mono.empty();
+              }
+              return geoLocationService.prefetch(ip) // joins a live lookup already in flight rather than calling upstream twice
+                      .doOnNext(result -> job.completed.incrementAndGet())
+                      .onErrorResume(e -> {
+                        job.failed.incrementAndGet();
+                        log.debug("warmup.fetch fail ip={} err={}", ip, e.toString());
+                        return Mono.empty();
+                      });
+            }))
+            .then();
+  }
+
+  private Mono<Void> awaitSpareBudget() {
+    return Mono.fromCallable(this::hasSpareBudget)
+            .filter(Boolean::booleanValue)
+            .repeatWhenEmpty(polls -> polls.delayElements(props.getWarmup().getPollInterval()))
+            .then();
+  }
+
+  private boolean hasSpareBudget() {
+    if (!rateLimiterService.isEnabled()) {
+      return true;
+    }
+    // live lookups reserve permits rather than block in the limiter, so a backlog shows up here as a shortfall
+    return rateLimiterService.get().getMetrics().getAvailablePermissions() > props.getWarmup().getReservePermits();
+  }
+
+  private Mono<List<String>> seeds(Set<WarmupSource> sources) {
+    AppProperties.Warmup cfg = props.getWarmup();
+    return Mono.fromCallable(() -> {
+      Set<String> seeds = new LinkedHashSet<>();
+      if (sources.contains(WarmupSource.RECENT)) {
+        seeds.addAll(recentLookups.top(cfg.getTopN()));
+      }
+      if (sources.contains(WarmupSource.SNAPSHOT)) {
+        seeds.addAll(readAddresses(cfg.getSnapshotFile()));
+      }
+      if (sources.contains(WarmupSource.FILE)) {
+        seeds.addAll(readAddresses(cfg.getSeedFile()));
+      }
+      return seeds.stream().filter(InetAddresses::isInetAddress).toList();
+    }).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private static List<String> readAddresses(String file) throws IOException {
+    if (file == null || file.isBlank() || !Files.isReadable(Path.of(file))) {
+      return List.of();
+    }
+    return Files.readAllLines(Path.of(file)).stream()
+            .map(String::trim)
+            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+            .toList();
+  }
+
+  private static final class Job {
+    private final Instant startedAt = Instant.now();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile WarmupStatus.State state = WarmupStatus.State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    /** Exists before the pipeline is subscribed, so a cancel that arrives first still takes effect. */
+    private final Disposable.Swap subscription = Disposables.swap();
+
+    boolean isRunning() {
+      return state == WarmupStatus.State.RUNNING;
+    }
+
+    void finish(WarmupStatus.State end) {
+      finishedAt = Instant.now();
+      state = end;
+    }
+
+    WarmupStatus status() {
+      return new WarmupStatus(state, total.get(), completed.get(), skipped.get(), failed.get(), startedAt, finishedAt, error);
+    }
+  }
+}
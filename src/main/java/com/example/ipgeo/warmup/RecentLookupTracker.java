@@ -0,0 +1,45 @@
+package com.example.ipgeo.warmup;
+
+import com.example.ipgeo.config.AppProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory access log: counts lookups per address over a sliding idle window
+ * so the warm-up can seed itself from what callers have actually been asking for.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecentLookupTracker {
+
+  private final AppProperties props;
+  private Cache<String, LongAdder> counts;
+
+  private Cache<String, LongAdder> counts() {
+    if (counts == null) {
+      counts = Caffeine.newBuilder()
+              .expireAfterAccess(props.getWarmup().getRecentWindow())
+              .maximumSize(props.getWarmup().getRecentMaxTracked())
+              .build();
+    }
+    return counts;
+  }
+
+  public void record(String ipAddress) {
+    counts().get(ipAddress, k -> new LongAdder()).increment();
+  }
+
+  public List<String> top(int n) {
+    return counts().asMap().entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+            .limit(n)
+            .map(Map.Entry::getKey)
+            .toList();
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.ipgeo.warmup;
+
+public enum WarmupSource {
+  /** Addresses listed one per line in {@code ipgeo.warmup.seed-file}. */
+  FILE,
+  /** Top-N addresses looked up recently on this node. */
+  RECENT,
+  /** Top-N addresses saved to {@code ipgeo.warmup.snapshot-file} by the previous run. */
+  SNAPSHOT
+}
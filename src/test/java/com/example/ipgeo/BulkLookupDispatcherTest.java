@@ -0,0 +1,198 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.deadline.Deadline;
+import com.example.ipgeo.exception.DeadlineExceededException;
+import com.example.ipgeo.exception.UpstreamAnswerMissingException;
+import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.provider.BulkLookupDispatcher;
+import com.example.ipgeo.provider.FreeIpApiProvider;
+import com.example.ipgeo.ratelimit.RateLimiterService;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Micro-batching against a local bulk-capable FreeIPAPI stub.
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkLookupDispatcherTest {
+
+  private MockWebServer mockWebServer;
+  private AppProperties props;
+  private BulkLookupDispatcher dispatcher;
+
+  @Mock private RateLimiterService rateLimiterService;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+
+    props = new AppProperties();
+    AppProperties.Freeipapi cfg = props.getFreeipapi();
+    cfg.setBaseUrl("http://unused-in-test");
+    cfg.setTimeout(Duration.ofSeconds(2));
+    cfg.setConnectTimeout(Duration.ofSeconds(1));
+    cfg.getRatelimiter().setName("geoApiLimiter");
+    cfg.getRetry().setName("geoApiRetry");
+    cfg.getCircuitbreaker().setName("geoApiBreaker");
+    cfg.getBulk().setEnabled(true);
+    cfg.getBulk().setPath("/bulk");
+    cfg.getBulk().setMaxBatchSize(3);
+    cfg.getBulk().setWindow(Duration.ofMillis(50));
+
+    FreeIpApiProvider provider = new FreeIpApiProvider(
+            WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build(),
+            rateLimiterService,
+            RetryRegistry.of(RetryConfig.custom().maxAttempts(1).build()),
+            CircuitBreakerRegistry.ofDefaults(),
+            props);
+    dispatcher = new BulkLookupDispatcher(provider, props);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  @DisplayName("concurrent distinct misses within the window → one bulk call, answers fanned out")
+  void batchesWithinWindow() throws InterruptedException {
+    mockWebServer.enqueue(bulkResponse("1.1.1.1", "2.2.2.2"));
+
+    StepVerifier.create(Flux.merge(dispatcher.fetch("1.1.1.1"), dispatcher.fetch("2.2.2.2")).collectList())
+            .assertNext(results -> assertThat(results)
+                    .extracting(GeoLocationResult::ipAddress)
+                    .containsExactlyInAnyOrder("1.1.1.1", "2.2.2.2"))
+            .verifyComplete();
+
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    RecordedRequest req = mockWebServer.takeRequest();
+    assertThat(req.getMethod()).isEqualTo("POST");
+    assertThat(req.getPath()).isEqualTo("/bulk");
+    assertThat(req.getBody().readUtf8()).isEqualTo("[\"1.1.1.1\",\"2.2.2.2\"]");
+  }
+
+  @Test
+  @DisplayName("batch reaches max size → sent without waiting for the window")
+  void fullBatchSentImmediately() {
+    props.getFreeipapi().getBulk().setWindow(Duration.ofSeconds(30));
+    mockWebServer.enqueue(bulkResponse("1.1.1.1", "2.2.2.2", "3.3.3.3"));
+
+    StepVerifier.create(Flux.merge(
+                    dispatcher.fetch("1.1.1.1"), dispatcher.fetch("2.2.2.2"), dispatcher.fetch("3.3.3.3")).collectList())
+            .assertNext(results -> assertThat(results).hasSize(3))
+            .verifyComplete();
+
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("address missing from bulk answer → only that waiter fails")
+  void missingAnswerFailsOnlyItsWaiter() {
+    mockWebServer.enqueue(bulkResponse("1.1.1.1"));
+
+    Mono<GeoLocationResult> answered = dispatcher.fetch("1.1.1.1");
+    Mono<GeoLocationResult> missing = dispatcher.fetch("9.9.9.9");
+
+    StepVerifier.create(Flux.merge(answered, missing.onErrorResume(UpstreamAnswerMissingException.class, e -> Mono.empty())).collectList())
+            .assertNext(results -> assertThat(results).extracting(GeoLocationResult::ipAddress).containsExactly("1.1.1.1"))
+            .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("answers without ipAddress and one dropped → order not trusted, none cached under a wrong address")
+  void unlabelledShortAnswerIsNotMatchedByPosition() {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200)
+            .setBody("[{\"countryName\":\"Somewhere\"}]")
+            .addHeader("Content-Type", "application/json"));
+
+    Mono<GeoLocationResult> first = dispatcher.fetch("1.1.1.1");
+    Mono<GeoLocationResult> second = dispatcher.fetch("2.2.2.2");
+
+    StepVerifier.create(Flux.merge(first, second).materialize().filter(s -> s.isOnError()).collectList())
+            .assertNext(errors -> assertThat(errors).hasSize(1)
+                    .allSatisfy(s -> assertThat(s.getThrowable()).isInstanceOf(UpstreamAnswerMissingException.class)))
+            .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("upstream echoes an address in another spelling → still matched to the waiter that asked for it")
+  void matchesDifferentlySpelledAddresses() {
+    mockWebServer.enqueue(bulkResponse("1.1.1.1", "2001:db8::1"));
+
+    StepVerifier.create(Flux.merge(dispatcher.fetch("2001:DB8:0:0:0:0:0:1"), dispatcher.fetch("1.1.1.1")).collectList())
+            .assertNext(results -> assertThat(results)
+                    .extracting(GeoLocationResult::ipAddress)
+                    .containsExactlyInAnyOrder("2001:DB8:0:0:0:0:0:1", "1.1.1.1"))
+            .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("impatient waiter shares a batch with a patient one → each stops at its own deadline")
+  void eachWaiterKeepsItsOwnDeadline() {
+    mockWebServer.enqueue(bulkResponse("1.1.1.1", "2.2.2.2").setBodyDelay(1, TimeUnit.SECONDS));
+
+    Mono<GeoLocationResult> impatient = dispatcher.fetch("1.1.1.1")
+            .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofMillis(200))));
+    Mono<GeoLocationResult> patient = dispatcher.fetch("2.2.2.2")
+            .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofSeconds(5))));
+    long start = System.nanoTime();
+
+    StepVerifier.create(Flux.merge(
+                    impatient.onErrorResume(DeadlineExceededException.class, e -> {
+                      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(800));
+                      return Mono.empty();
+                    }),
+                    patient).collectList())
+            .assertNext(results -> assertThat(results).extracting(GeoLocationResult::ipAddress).containsExactly("2.2.2.2"))
+            .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("bulk disabled → single-address upstream call, no batching")
+  void bulkDisabledPassesThrough() throws InterruptedException {
+    props.getFreeipapi().getBulk().setEnabled(false);
+    mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(200)
+            .setBody("{\"countryName\":\"Canada\"}")
+            .addHeader("Content-Type", "application/json"));
+
+    StepVerifier.create(dispatcher.fetch("1.1.1.1"))
+            .assertNext(r -> assertThat(r.countryName()).isEqualTo("Canada"))
+            .verifyComplete();
+
+    assertThat(mockWebServer.takeRequest().getPath()).isEqualTo("/1.1.1.1");
+  }
+
+  private static MockResponse bulkResponse(String... ips) {
+    String body = List.of(ips).stream()
+            .map(ip -> "{\"ipAddress\":\"" + ip + "\",\"countryName\":\"Country of " + ip + "\"}")
+            .reduce((a, b) -> a + "," + b)
+            .map(items -> "[" + items + "]")
+            .orElse("[]");
+    return new MockResponse().setResponseCode(200).setBody(body).addHeader("Content-Type", "application/json");
+  }
+}
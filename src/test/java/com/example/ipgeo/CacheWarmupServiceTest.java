@@ -0,0 +1,157 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.cache.CacheService;
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.model.WarmupStatus;
+import com.example.ipgeo.provider.GeoProvider;
+import com.example.ipgeo.ratelimit.ClientQuotaService;
+import com.example.ipgeo.ratelimit.RateLimiterService;
+import com.example.ipgeo.service.GeoLocationServiceImpl;
+import com.example.ipgeo.warmup.CacheWarmupService;
+import com.example.ipgeo.warmup.RecentLookupTracker;
+import com.example.ipgeo.warmup.WarmupSource;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmupServiceTest {
+
+  @TempDir Path tmp;
+
+  @Mock private GeoProvider geoProvider;
+  @Mock private RateLimiterService rateLimiterService;
+
+  private AppProperties props;
+  private FakeCache cache;
+  private RecentLookupTracker recent;
+
+  @BeforeEach
+  void setUp() {
+    props = new AppProperties();
+    AppProperties.Warmup cfg = props.getWarmup();
+    cfg.setTopN(10);
+    cfg.setReservePermits(2);
+    cfg.setPollInterval(Duration.ofMillis(20));
+    cfg.setRecentWindow(Duration.ofMinutes(1));
+    cfg.setRecentMaxTracked(100);
+    cache = new FakeCache();
+    recent = new RecentLookupTracker(props);
+  }
+
+  @Test
+  @DisplayName("seed file + recent lookups → fetched into cache, already cached entries skipped")
+  void warmsFromFileAndRecent() throws IOException, InterruptedException {
+    Path seeds = tmp.resolve("seeds.txt");
+    Files.write(seeds, List.of("# seeds", "1.1.1.1", "", "2.2.2.2", "not-an-ip"));
+    props.getWarmup().setSeedFile(seeds.toString());
+    recent.record("3.3.3.3");
+    cache.put("2.2.2.2", result("2.2.2.2"));
+
+    when(rateLimiterService.isEnabled()).thenReturn(true);
+    when(rateLimiterService.get()).thenReturn(limiter(10));
+    when(geoProvider.fetch(anyString())).thenAnswer(inv -> Mono.just(result(inv.getArgument(0))));
+
+    CacheWarmupService warmup = newWarmup();
+    warmup.start(EnumSet.of(WarmupSource.FILE, WarmupSource.RECENT));
+
+    awaitState(warmup, WarmupStatus.State.COMPLETED);
+    WarmupStatus status = warmup.status();
+    assertThat(status.total()).isEqualTo(3);
+    assertThat(status.completed()).isEqualTo(2);
+    assertThat(status.skipped()).isEqualTo(1);
+    assertThat(cache.get("1.1.1.1")).isPresent();
+    assertThat(cache.get("3.3.3.3")).isPresent();
+    verify(geoProvider, never()).fetch("2.2.2.2");
+  }
+
+  @Test
+  @DisplayName("unreadable seed file → job reports FAILED with the error instead of dying silently")
+  void reportsFailedWhenSeedsCannotBeRead() throws IOException, InterruptedException {
+    Path seeds = tmp.resolve("seeds.txt");
+    Files.write(seeds, new byte[] {(byte) 0xC3, (byte) 0x28}); // not valid UTF-8
+    props.getWarmup().setSeedFile(seeds.toString());
+
+    CacheWarmupService warmup = newWarmup();
+    warmup.start(EnumSet.of(WarmupSource.FILE));
+
+    awaitState(warmup, WarmupStatus.State.FAILED);
+    WarmupStatus status = warmup.status();
+    assertThat(status.error()).contains("MalformedInputException");
+    assertThat(status.finishedAt()).isNotNull();
+    verifyNoInteractions(geoProvider);
+  }
+
+  @Test
+  @DisplayName("no permits above the reserve → waits instead of competing with live traffic")
+  void waitsForSpareBudget() throws InterruptedException {
+    recent.record("4.4.4.4");
+
+    when(rateLimiterService.isEnabled()).thenReturn(true);
+    when(rateLimiterService.get()).thenReturn(limiter(2)); // exactly the reserve, nothing spare
+
+    CacheWarmupService warmup = newWarmup();
+    warmup.start(EnumSet.of(WarmupSource.RECENT));
+
+    Thread.sleep(200);
+    assertThat(warmup.status().state()).isEqualTo(WarmupStatus.State.RUNNING);
+    verifyNoInteractions(geoProvider);
+
+    assertThat(warmup.cancel().state()).isEqualTo(WarmupStatus.State.CANCELLED);
+  }
+
+  private CacheWarmupService newWarmup() {
+    ClientQuotaService noQuota = client -> {
+      throw new AssertionError("warm-up must not charge client quota");
+    };
+    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider, noQuota, recent);
+    return new CacheWarmupService(props, cache, service, rateLimiterService, recent);
+  }
+
+  private static void awaitState(CacheWarmupService warmup, WarmupStatus.State state) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+    while (warmup.status().state() != state && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(warmup.status().state()).isEqualTo(state);
+  }
+
+  private static RateLimiter limiter(int permits) {
+    return RateLimiter.of("geoApiLimiter", RateLimiterConfig.custom()
+            .limitForPeriod(permits)
+            .limitRefreshPeriod(Duration.ofHours(1))
+            .timeoutDuration(Duration.ZERO)
+            .build());
+  }
+
+  private static GeoLocationResult result(String ip) {
+    return new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0);
+  }
+
+  private static class FakeCache implements CacheService {
+    private final ConcurrentHashMap<String, GeoLocationResult> map = new ConcurrentHashMap<>();
+    @Override public Optional<GeoLocationResult> get(String key) { return Optional.ofNullable(map.get(key)); }
+    @Override public void put(String key, GeoLocationResult value) { map.put(key, value); }
+  }
+}
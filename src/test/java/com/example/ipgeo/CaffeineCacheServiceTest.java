@@ -0,0 +1,162 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.cache.CaffeineCacheService;
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.model.GeoLocationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaffeineCacheServiceTest {
+
+  private static final String IP = "100.64.0.1";
+  private static final GeoLocationResult TEL_AVIV = new GeoLocationResult(IP, "Asia", "Israel", "Center", "Tel Aviv", 32.08, 34.78);
+  private static final GeoLocationResult HAIFA = new GeoLocationResult(IP, "Asia", "Israel", "Haifa", "Haifa", 32.79, 34.99);
+
+  private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+  private AppProperties props;
+  private CaffeineCacheService cache;
+
+  @BeforeEach
+  void setUp() {
+    props = new AppProperties();
+    props.getCache().setTtlDays(30);
+    props.getCache().setMaxSize(1000);
+    AppProperties.Adaptive adaptive = props.getCache().getAdaptive();
+    adaptive.setEnabled(true);
+    adaptive.setMinTtl(Duration.ofDays(1));
+    adaptive.setMaxTtl(Duration.ofDays(180));
+    adaptive.setGrowthFactor(2.0);
+    adaptive.setShrinkFactor(0.25);
+    adaptive.setRetention(Duration.ofDays(30));
+    adaptive.setHistoryMaxSize(1000);
+    cache = new CaffeineCacheService(props, now::get, Runnable::run);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cache.close();
+  }
+
+  @Test
+  @DisplayName("new address → starting TTL from ttl-days")
+  void initialTtl() {
+    cache.put(IP, TEL_AVIV);
+
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(30));
+  }
+
+  @Test
+  @DisplayName("expired entry → miss, and gone from L1")
+  void expiredIsMiss() {
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(31));
+
+    assertThat(cache.get(IP)).isEmpty();
+    assertThat(cache.timeToLive(IP)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("refresh returns the same answer → TTL grows, up to max-ttl")
+  void stableAnswerGrowsTtl() {
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(31));
+    cache.put(IP, TEL_AVIV);
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(60));
+
+    advance(Duration.ofDays(61));
+    cache.put(IP, TEL_AVIV);
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(120));
+
+    advance(Duration.ofDays(121));
+    cache.put(IP, TEL_AVIV);
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(180));
+    assertThat(cache.get(IP)).contains(TEL_AVIV);
+  }
+
+  @Test
+  @DisplayName("refresh returns a different answer → TTL shrinks, down to min-ttl")
+  void changedAnswerShrinksTtl() {
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(31));
+    cache.put(IP, HAIFA);
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(30).dividedBy(4));
+    assertThat(cache.get(IP)).contains(HAIFA);
+
+    advance(Duration.ofDays(8));
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(2));
+    cache.put(IP, HAIFA);
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(1));
+  }
+
+  @Test
+  @DisplayName("history older than the retention period → starts again at ttl-days")
+  void historyExpires() {
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(30 + 31));
+
+    cache.put(IP, TEL_AVIV);
+
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(30));
+  }
+
+  @Test
+  @DisplayName("adaptive TTL disabled → every write gets ttl-days")
+  void disabled() {
+    props.getCache().getAdaptive().setEnabled(false);
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(31));
+
+    cache.put(IP, TEL_AVIV);
+
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(30));
+  }
+
+  @Test
+  @DisplayName("L2 enabled → previous answer and TTL read back from the L2 slot after L1 expired it")
+  void previousFromL2() {
+    enableL2();
+    cache.put(IP, TEL_AVIV);
+    advance(Duration.ofDays(31));
+    assertThat(cache.timeToLive(IP)).isEmpty();
+
+    cache.put(IP, TEL_AVIV);
+
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(60));
+  }
+
+  @Test
+  @DisplayName("L2 enabled, answer with empty fields → still recognised as unchanged")
+  void previousFromL2WithEmptyFields() {
+    GeoLocationResult sparse = new GeoLocationResult(IP, "Asia", "Israel", "", "", 31.5, 34.75);
+    enableL2();
+    cache.put(IP, sparse);
+    advance(Duration.ofDays(31));
+    assertThat(cache.timeToLive(IP)).isEmpty();
+
+    cache.put(IP, sparse);
+
+    assertThat(cache.timeToLive(IP)).contains(Duration.ofDays(60));
+    assertThat(cache.get(IP)).contains(sparse);
+  }
+
+  private void enableL2() {
+    AppProperties.L2 l2 = props.getCache().getL2();
+    l2.setEnabled(true);
+    l2.setCapacity(1024);
+    l2.setSlotBytes(160);
+    l2.setSegments(4);
+    l2.setMaxProbe(16);
+  }
+
+  private void advance(Duration d) {
+    now.addAndGet(d.toMillis());
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.ratelimit.ClientIdentity;
+import com.example.ipgeo.ratelimit.ClientIdentityFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientIdentityFilterTest {
+
+  private ClientIdentityFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    AppProperties props = new AppProperties();
+    props.getQuota().setClientHeader("X-Api-Key");
+    props.getQuota().getApiKeys().put("partner-1", "bulk");
+    filter = new ClientIdentityFilter(props);
+  }
+
+  @Test
+  @DisplayName("configured API key → identified by key with its priority class")
+  void configuredKey() {
+    assertThat(resolve("partner-1")).isEqualTo(new ClientIdentity("key:partner-1", "bulk"));
+  }
+
+  @Test
+  @DisplayName("unknown API key → ignored, identified by remote address")
+  void unknownKeyFallsBackToAddress() {
+    assertThat(resolve("random-" + System.nanoTime())).isEqualTo(new ClientIdentity("addr:10.0.0.7", null));
+  }
+
+  private ClientIdentity resolve(String apiKey) {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/ip")
+            .header("X-Api-Key", apiKey)
+            .remoteAddress(new InetSocketAddress("10.0.0.7", 40000)));
+    AtomicReference<ClientIdentity> seen = new AtomicReference<>();
+    filter.filter(exchange, ex -> Mono.deferContextual(ctx -> {
+      seen.set(ctx.get(ClientIdentity.class));
+      return Mono.empty();
+    })).block();
+    return seen.get();
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.ratelimit.ClientIdentity;
+import com.example.ipgeo.ratelimit.ClientQuotaServiceImpl;
+import com.example.ipgeo.ratelimit.RateLimiterService;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientQuotaServiceImplTest {
+
+  private AppProperties props;
+  private RateLimiter upstream;
+  private ClientQuotaServiceImpl quotas;
+
+  @BeforeEach
+  void setUp() {
+    props = new AppProperties();
+    AppProperties.Quota cfg = props.getQuota();
+    cfg.setEnabled(true);
+    cfg.setClientHeader("X-Api-Key");
+    cfg.setIdleEviction(Duration.ofMinutes(10));
+    cfg.setMaxClients(1000);
+    cfg.setDefaultClass("interactive");
+    cfg.getClasses().put("interactive", priorityClass(3));
+    cfg.getClasses().put("bulk", priorityClass(1));
+    cfg.setBorrowHeadroom(2);
+    upstream = RateLimiter.of("upstream", RateLimiterConfig.custom()
+            .limitForPeriod(60).limitRefreshPeriod(Duration.ofHours(1)).timeoutDuration(Duration.ZERO).build());
+    quotas = new ClientQuotaServiceImpl(props, new RateLimiterService() {
+      @Override public RateLimiter get() { return upstream; }
+      @Override public boolean isEnabled() { return true; }
+    });
+  }
+
+  /** Leaves the shared limiter at the borrow headroom, where shares are enforced. */
+  private void contend() {
+    while (upstream.getMetrics().getAvailablePermissions() > 2) {
+      upstream.acquirePermission();
+    }
+  }
+
+  @Test
+  @DisplayName("client over its share → rejected with wait, other clients unaffected")
+  void noisyClientDoesNotStarveOthers() {
+    contend();
+    ClientIdentity noisy = new ClientIdentity("addr:10.0.0.1", null);
+    ClientIdentity quiet = new ClientIdentity("addr:10.0.0.2", null);
+
+    assertThat(quotas.tryAcquire(noisy)).isZero();
+    assertThat(quotas.tryAcquire(noisy)).isZero();
+    assertThat(quotas.tryAcquire(noisy)).isZero();
+    assertThat(quotas.tryAcquire(noisy)).isPositive();
+
+    assertThat(quotas.tryAcquire(quiet)).isZero();
+  }
+
+  @Test
+  @DisplayName("priority class → sizes the client's share")
+  void priorityClassSizesShare() {
+    contend();
+    ClientIdentity bulk = new ClientIdentity("key:batch-job", "bulk");
+
+    assertThat(quotas.tryAcquire(bulk)).isZero();
+    assertThat(quotas.tryAcquire(bulk)).isPositive();
+  }
+
+  @Test
+  @DisplayName("upstream limiter has spare permits → client past its share may borrow")
+  void uncontendedClientMayBorrow() {
+    ClientIdentity lone = new ClientIdentity("addr:10.0.0.1", null);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(quotas.tryAcquire(lone)).isZero();
+    }
+
+    contend();
+    assertThat(quotas.tryAcquire(lone)).isPositive();
+  }
+
+  @Test
+  @DisplayName("quota disabled → always granted")
+  void disabledAlwaysGrants() {
+    props.getQuota().setEnabled(false);
+    ClientIdentity bulk = new ClientIdentity("key:batch-job", "bulk");
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(quotas.tryAcquire(bulk)).isZero();
+    }
+  }
+
+  private static AppProperties.Quota.PriorityClass priorityClass(int limit) {
+    AppProperties.Quota.PriorityClass pc = new AppProperties.Quota.PriorityClass();
+    pc.setLimitForPeriod(limit);
+    pc.setLimitRefreshPeriod(Duration.ofHours(1));
+    return pc;
+  }
+}
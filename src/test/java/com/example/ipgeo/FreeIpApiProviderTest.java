@@ -1,6 +1,9 @@
 package com.example.ipgeo;
 
 import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.deadline.Deadline;
+import com.example.ipgeo.exception.DeadlineExceededException;
+import com.example.ipgeo.observability.RequestTimings;
 import com.example.ipgeo.provider.FreeIpApiProvider;
 import com.example.ipgeo.ratelimit.RateLimiterService;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
@@ -8,6 +11,9 @@ import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.retry.RetryConfig;
 import io.github.resilience4j.retry.RetryRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -17,13 +23,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -220,7 +230,9 @@ class FreeIpApiProviderTest {
 
     when(appProperties.getFreeipapi()).thenReturn(freeIpProps(false, "geoApiRetry", "geoApiBreaker"));
 
-    StepVerifier.create(providerRetrying.fetch(testIp))
+    RequestTimings timings = RequestTimings.start(null);
+
+    StepVerifier.create(providerRetrying.fetch(testIp).contextWrite(ctx -> ctx.put(RequestTimings.class, timings)))
             .assertNext(result -> {
               assertThat(result.countryName()).isEqualTo("United States");
               assertThat(result.cityName()).isEqualTo("Mountain View");
@@ -228,6 +240,109 @@ class FreeIpApiProviderTest {
             .verifyComplete();
 
     assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    assertThat(timings.serverTiming())
+            .containsPattern("ratelimit;dur=[\\d.]+;desc=\"2x\"")
+            .containsPattern("upstream;dur=[\\d.]+;desc=\"2x\"")
+            .contains("retry;dur=");
+  }
+
+  @Test
+  @DisplayName("Deadline already passed → no upstream call")
+  void shouldNotCallUpstreamAfterDeadline() {
+    StepVerifier.create(providerNoRetry.fetch("1.2.3.4")
+                    .contextWrite(ctx -> ctx.put(Deadline.class, new Deadline(System.nanoTime() - 1))))
+            .expectError(DeadlineExceededException.class)
+            .verify();
+
+    assertThat(mockWebServer.getRequestCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Slow upstream past the caller's deadline → abandoned at the deadline, not the 2s timeout")
+  void shouldAbandonUpstreamCallAtDeadline() {
+    mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(200)
+            .setBody("{}")
+            .addHeader("Content-Type", "application/json")
+            .setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+
+    long start = System.nanoTime();
+    StepVerifier.create(providerNoRetry.fetch("1.2.3.4")
+                    .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofMillis(300)))))
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(2));
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1200));
+  }
+
+  @Test
+  @DisplayName("Rate limiter backlog longer than remaining deadline → deadline exceeded without reserving a permit")
+  void shouldRejectWhenLimiterWaitExceedsDeadline() {
+    when(appProperties.getFreeipapi()).thenReturn(freeIpProps(true, "geoApiRetry", "geoApiBreaker"));
+    RateLimiter rl = RateLimiter.of("geoApiLimiter", RateLimiterConfig.custom()
+            .limitForPeriod(1)
+            .limitRefreshPeriod(Duration.ofSeconds(10))
+            .timeoutDuration(Duration.ofSeconds(30))
+            .build());
+    rl.acquirePermission(); // exhaust the current period
+    rl.reservePermission(); // and the next one
+    when(rateLimiterService.isEnabled()).thenReturn(true);
+    when(rateLimiterService.get()).thenReturn(rl);
+
+    StepVerifier.create(providerNoRetry.fetch("1.2.3.4")
+                    .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofMillis(500)))))
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(2));
+
+    assertThat(rl.getMetrics().getAvailablePermissions()).isEqualTo(-1);
+    assertThat(mockWebServer.getRequestCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Rate limiter wait within its own timeout but past the deadline → deadline exceeded, next period's permits untouched")
+  void shouldReportDeadlineWhenReservedWaitOvershoots() {
+    when(appProperties.getFreeipapi()).thenReturn(freeIpProps(true, "geoApiRetry", "geoApiBreaker"));
+    RateLimiter rl = RateLimiter.of("geoApiLimiter", RateLimiterConfig.custom()
+            .limitForPeriod(5)
+            .limitRefreshPeriod(Duration.ofSeconds(10))
+            .timeoutDuration(Duration.ofSeconds(20))
+            .build());
+    rl.acquirePermission(5); // exhaust the current period
+    when(rateLimiterService.isEnabled()).thenReturn(true);
+    when(rateLimiterService.get()).thenReturn(rl);
+
+    for (int i = 0; i < 5; i++) {
+      StepVerifier.create(providerNoRetry.fetch("1.2.3.4")
+                      .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofMillis(500)))))
+              .expectError(DeadlineExceededException.class)
+              .verify(Duration.ofSeconds(2));
+    }
+
+    assertThat(rl.getMetrics().getAvailablePermissions()).isZero();
+    assertThat(rl.getRateLimiterConfig().getTimeoutDuration()).isEqualTo(Duration.ofSeconds(20));
+    assertThat(mockWebServer.getRequestCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("UpstreamCall JFR event → carries the real HTTP status and flags an empty answer")
+  void upstreamCallEventRecordsActualStatus(@TempDir Path dir) throws IOException {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.example.ipgeo.UpstreamCall");
+      recording.start();
+      StepVerifier.create(providerNoRetry.fetch("1.2.3.4")).verifyComplete();
+      recording.stop();
+      Path file = dir.resolve("events.jfr");
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    }
+
+    assertThat(events).singleElement().satisfies(e -> {
+      assertThat(e.getInt("status")).isEqualTo(204);
+      assertThat(e.getBoolean("empty")).isTrue();
+    });
   }
 
   private AppProperties.Freeipapi freeIpProps(boolean rlEnabled, String retryName, String breakerName) {
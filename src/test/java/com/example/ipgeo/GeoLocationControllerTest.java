@@ -1,9 +1,15 @@
 package com.example.ipgeo;
 
+import com.example.ipgeo.codec.GeoLocationProtobuf;
 import com.example.ipgeo.controller.GeoLocationController;
+import com.example.ipgeo.deadline.DeadlineFilter;
 import com.example.ipgeo.exception.GlobalExceptionHandler;
 import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.observability.ServerTimingFilter;
+import com.example.ipgeo.ratelimit.ClientIdentityFilter;
 import com.example.ipgeo.service.GeoLocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +18,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -22,6 +29,10 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -29,7 +40,7 @@ import static org.mockito.Mockito.when;
         controllers = GeoLocationController.class,
         excludeFilters = @ComponentScan.Filter(
                 type = FilterType.ASSIGNABLE_TYPE,
-                classes = GlobalExceptionHandler.class // exclude prod advice that depends on AppProperties
+                classes = {GlobalExceptionHandler.class, ClientIdentityFilter.class, DeadlineFilter.class, ServerTimingFilter.class} // exclude prod beans that depend on AppProperties
         )
 )
 @Import(GeoLocationControllerTest.TestErrorHandler.class)
@@ -63,6 +74,118 @@ class GeoLocationControllerTest {
             .jsonPath("$.Longitude").isEqualTo(2.0);
   }
 
+  @Test
+  @DisplayName("GET /ip → ETag, Vary and Cache-Control max-age from remaining TTL")
+  void cachingHeaders() {
+    GeoLocationResult r = new GeoLocationResult("1.1.1.1", "A", "B", "C", "D", 1.0, 2.0);
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(r));
+    when(service.timeToLive("1.1.1.1")).thenReturn(Optional.of(Duration.ofSeconds(3600).plusMillis(700)));
+
+    webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofSeconds(3600)).cachePublic())
+            .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .expectHeader().value(HttpHeaders.ETAG, etag -> assertThat(etag).startsWith("W/\""));
+  }
+
+  @Test
+  @DisplayName("GET /ip with matching If-None-Match → 304 without body")
+  void conditionalGetNotModified() {
+    GeoLocationResult r = new GeoLocationResult("1.1.1.1", "A", "B", "C", "D", 1.0, 2.0);
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(r));
+
+    String etag = webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(byte[].class).getResponseHeaders().getETag();
+
+    webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+            .expectBody().isEmpty();
+  }
+
+  @Test
+  @DisplayName("GET /ip with stale If-None-Match → 200 with body")
+  void conditionalGetChanged() {
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(new GeoLocationResult("1.1.1.1", "A", "B", "C", "D", 1.0, 2.0)));
+
+    webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .header(HttpHeaders.IF_NONE_MATCH, "W/\"stale\"")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.IpAddress").isEqualTo("1.1.1.1");
+  }
+
+  @Test
+  @DisplayName("GET /ip without Accept → JSON stays the default")
+  void defaultsToJson() {
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(new GeoLocationResult("1.1.1.1", "A", "B", "C", "D", 1.0, 2.0)));
+
+    webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+  }
+
+  @Test
+  @DisplayName("GET /ip with Accept: application/cbor → CBOR body")
+  void cbor() throws Exception {
+    GeoLocationResult r = new GeoLocationResult("1.1.1.1", "A", "B", "C", "D", 1.0, 2.0);
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(r));
+
+    byte[] body = webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .accept(MediaType.APPLICATION_CBOR)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+            .expectBody(byte[].class).returnResult().getResponseBody();
+
+    assertThat(new ObjectMapper(new CBORFactory()).readValue(body, GeoLocationResult.class)).isEqualTo(r);
+  }
+
+  @Test
+  @DisplayName("GET /ip with Accept: application/x-jackson-smile → Smile body")
+  void smile() {
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(new GeoLocationResult("1.1.1.1", "A", "B", "C", "D", 1.0, 2.0)));
+
+    webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith("application/x-jackson-smile");
+  }
+
+  @Test
+  @DisplayName("GET /ip with Accept: application/x-protobuf → protobuf message")
+  void protobuf() {
+    GeoLocationResult r = new GeoLocationResult("1.1.1.1", "A", "B", "", "D", 1.0, -2.5);
+    when(service.locate("1.1.1.1")).thenReturn(Mono.just(r));
+
+    byte[] body = webTestClient.get()
+            .uri("/ip?address=1.1.1.1")
+            .accept(MediaType.parseMediaType("application/x-protobuf"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith("application/x-protobuf")
+            .expectBody(byte[].class).returnResult().getResponseBody();
+
+    GeoLocationResult decoded = GeoLocationProtobuf.fromBytes(body);
+    assertThat(decoded.ipAddress()).isEqualTo("1.1.1.1");
+    assertThat(decoded.regionName()).isEmpty(); // "" is written, so it is not confused with a missing field
+    assertThat(decoded.longitude()).isEqualTo(-2.5);
+  }
+
   @Test
   @DisplayName("GET /ip?address=not-an-ip → 400 with message")
   void invalidIpReturns400() {
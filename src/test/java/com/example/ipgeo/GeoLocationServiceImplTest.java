@@ -1,14 +1,23 @@
 package com.example.ipgeo;
 
 import com.example.ipgeo.cache.CacheService;
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.deadline.Deadline;
+import com.example.ipgeo.exception.DeadlineExceededException;
+import com.example.ipgeo.exception.ClientQuotaExceededException;
 import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.observability.RequestTimings;
 import com.example.ipgeo.provider.GeoProvider;
+import com.example.ipgeo.ratelimit.ClientIdentity;
+import com.example.ipgeo.ratelimit.ClientQuotaService;
 import com.example.ipgeo.service.GeoLocationServiceImpl;
+import com.example.ipgeo.warmup.RecentLookupTracker;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
@@ -17,7 +26,10 @@ import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -28,6 +40,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class GeoLocationServiceImplTest {
 
+  private static final ClientQuotaService UNLIMITED = client -> 0L;
+  private static final ClientQuotaService EXHAUSTED = client -> Duration.ofSeconds(5).toNanos();
+
   @Mock
   private GeoProvider geoProvider;
 
@@ -39,7 +54,7 @@ class GeoLocationServiceImplTest {
     GeoLocationResult cached = new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0);
     cache.put(ip, cached);
 
-    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider);
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
 
     StepVerifier.create(service.locate(ip))
             .expectNext(cached)
@@ -57,7 +72,7 @@ class GeoLocationServiceImplTest {
 
     when(geoProvider.fetch(ip)).thenReturn(Mono.just(api));
 
-    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider);
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
 
     StepVerifier.create(service.locate(ip))
             .expectNext(api)
@@ -77,7 +92,7 @@ class GeoLocationServiceImplTest {
     Sinks.One<GeoLocationResult> sink = Sinks.one();
     when(geoProvider.fetch(ip)).thenReturn(sink.asMono());
 
-    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider);
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
 
     Mono<GeoLocationResult> first = service.locate(ip);
     Mono<GeoLocationResult> second = service.locate(ip);
@@ -99,11 +114,101 @@ class GeoLocationServiceImplTest {
     assertThat(cache.get(ip)).contains(api);
   }
 
+  @Test
+  @DisplayName("concurrent misses racing for the same IP → quota charged once, only for the caller that starts the lookup")
+  void onlyInitiatorIsCharged() throws InterruptedException {
+    FakeCache cache = new FakeCache();
+    String ip = "9.9.9.11";
+    Sinks.One<GeoLocationResult> sink = Sinks.one();
+    when(geoProvider.fetch(ip)).thenReturn(sink.asMono());
+    AtomicInteger charged = new AtomicInteger();
+    ClientQuotaService slowQuota = client -> {
+      charged.incrementAndGet();
+      LockSupport.parkNanos(Duration.ofMillis(20).toNanos()); // widen any check-then-act window
+      return 0L;
+    };
+    GeoLocationServiceImpl service = newService(cache, slowQuota);
+
+    int callers = 8;
+    CyclicBarrier barrier = new CyclicBarrier(callers);
+    CountDownLatch done = new CountDownLatch(callers);
+    for (int i = 0; i < callers; i++) {
+      new Thread(() -> {
+        try {
+          barrier.await();
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+        service.locate(ip).subscribe(r -> done.countDown());
+      }).start();
+    }
+    Thread.sleep(200);
+    sink.tryEmitValue(new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0));
+
+    assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(charged).hasValue(1);
+    verify(geoProvider, times(1)).fetch(ip);
+  }
+
+  @Test
+  @DisplayName("impatient initiator → times out alone; joiner still gets the answer and it is cached")
+  void impatientInitiatorDoesNotFailJoiners() {
+    FakeCache cache = new FakeCache();
+    String ip = "9.9.9.10";
+    GeoLocationResult api = new GeoLocationResult(ip, "EU", "DE", "BY", "Munich", 48.1351, 11.5820);
+    when(geoProvider.fetch(ip)).thenReturn(Mono.deferContextual(ctx -> {
+      Mono<GeoLocationResult> slow = Mono.just(api).delayElement(Duration.ofMillis(300));
+      return Deadline.from(ctx) // honours a deadline in context, as the real provider does
+              .map(d -> slow.timeout(d.remaining(), Mono.<GeoLocationResult>error(new DeadlineExceededException("upstream"))))
+              .orElse(slow);
+    }));
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
+
+    Mono<GeoLocationResult> initiator = service.locate(ip)
+            .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofMillis(100))));
+    Mono<GeoLocationResult> joiner = service.locate(ip)
+            .contextWrite(ctx -> ctx.put(Deadline.class, Deadline.after(Duration.ofSeconds(8))));
+
+    StepVerifier.create(Flux.merge(initiator.materialize(), joiner.materialize()).collectList())
+            .assertNext(signals -> {
+              assertThat(signals).anySatisfy(s -> assertThat(s.getThrowable()).isInstanceOf(DeadlineExceededException.class));
+              assertThat(signals).anySatisfy(s -> assertThat(s.get()).isEqualTo(api));
+            })
+            .verifyComplete();
+
+    verify(geoProvider, times(1)).fetch(ip);
+    assertThat(cache.get(ip)).contains(api);
+  }
+
+  @Test
+  @DisplayName("warm-up prefetch and live miss for the same IP → one provider call, no quota charged for the prefetch")
+  void prefetchCoalescesWithLiveLookup() {
+    FakeCache cache = new FakeCache();
+    String ip = "9.9.9.12";
+    GeoLocationResult api = new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0);
+    Sinks.One<GeoLocationResult> sink = Sinks.one();
+    when(geoProvider.fetch(ip)).thenReturn(sink.asMono());
+    AtomicInteger charged = new AtomicInteger();
+    GeoLocationServiceImpl service = newService(cache, client -> {
+      charged.incrementAndGet();
+      return 0L;
+    });
+
+    StepVerifier.create(Flux.merge(service.prefetch(ip), service.locate(ip)).collectList())
+            .then(() -> sink.tryEmitValue(api))
+            .assertNext(results -> assertThat(results).containsExactly(api, api))
+            .verifyComplete();
+
+    verify(geoProvider, times(1)).fetch(ip);
+    assertThat(charged).hasValue(0);
+    assertThat(cache.get(ip)).contains(api);
+  }
+
   @Test
   @DisplayName("invalid IP → IllegalArgumentException")
   void invalidIp() {
     FakeCache cache = new FakeCache();
-    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider);
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
 
     StepVerifier.create(service.locate("not-an-ip"))
             .expectErrorSatisfies(err -> {
@@ -124,7 +229,7 @@ class GeoLocationServiceImplTest {
 
     when(geoProvider.fetch(ip)).thenReturn(Mono.just(api).delayElement(Duration.ofMillis(10)));
 
-    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider);
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
 
     StepVerifier.create(service.locate(ip))
             .expectNext(api)
@@ -142,7 +247,7 @@ class GeoLocationServiceImplTest {
 
     when(geoProvider.fetch(ip)).thenReturn(Mono.just(api));
 
-    GeoLocationServiceImpl service = new GeoLocationServiceImpl(cache, geoProvider);
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
 
     StepVerifier.create(service.locate(ip)).expectNext(api).verifyComplete();
     verify(geoProvider, times(1)).fetch(ip);
@@ -152,6 +257,62 @@ class GeoLocationServiceImplTest {
     verifyNoMoreInteractions(geoProvider);
   }
 
+  @Test
+  @DisplayName("client quota exhausted → cache miss rejected without calling provider")
+  void quotaExhaustedRejectsMiss() {
+    FakeCache cache = new FakeCache();
+    GeoLocationServiceImpl service = newService(cache, EXHAUSTED);
+
+    StepVerifier.create(service.locate("5.5.5.5")
+                    .contextWrite(ctx -> ctx.put(ClientIdentity.class, new ClientIdentity("key:noisy", "bulk"))))
+            .expectErrorSatisfies(err -> {
+              assertThat(err).isInstanceOf(ClientQuotaExceededException.class);
+              assertThat(((ClientQuotaExceededException) err).getRetryAfter()).isEqualTo(Duration.ofSeconds(5));
+            })
+            .verify();
+
+    verifyNoInteractions(geoProvider);
+  }
+
+  @Test
+  @DisplayName("client quota exhausted → cache hits still served")
+  void quotaExhaustedStillServesHits() {
+    FakeCache cache = new FakeCache();
+    String ip = "6.6.6.6";
+    GeoLocationResult cached = new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0);
+    cache.put(ip, cached);
+
+    GeoLocationServiceImpl service = newService(cache, EXHAUSTED);
+
+    StepVerifier.create(service.locate(ip))
+            .expectNext(cached)
+            .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("request timings in context → validate, cache, quota and provider stages recorded")
+  void recordsStageTimings() {
+    FakeCache cache = new FakeCache();
+    String ip = "7.7.7.7";
+    GeoLocationResult api = new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0);
+    when(geoProvider.fetch(ip)).thenReturn(Mono.just(api));
+    GeoLocationServiceImpl service = newService(cache, UNLIMITED);
+    RequestTimings timings = RequestTimings.start(null);
+
+    StepVerifier.create(service.locate(ip).contextWrite(ctx -> ctx.put(RequestTimings.class, timings)))
+            .expectNext(api)
+            .verifyComplete();
+
+    assertThat(timings.serverTiming()).startsWith("validate;dur=").contains("cache;dur=", "quota;dur=", "total;dur=");
+  }
+
+  private GeoLocationServiceImpl newService(CacheService cache, ClientQuotaService quota) {
+    AppProperties props = new AppProperties();
+    props.getWarmup().setRecentWindow(Duration.ofMinutes(1));
+    props.getWarmup().setRecentMaxTracked(100);
+    return new GeoLocationServiceImpl(cache, geoProvider, quota, new RecentLookupTracker(props));
+  }
+
   /** Minimal in-memory CacheService for tests. */
   private static class FakeCache implements CacheService {
     private final ConcurrentHashMap<String, GeoLocationResult> map = new ConcurrentHashMap<>();
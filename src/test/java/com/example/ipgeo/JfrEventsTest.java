@@ -0,0 +1,113 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.cache.CacheService;
+import com.example.ipgeo.cache.CaffeineCacheService;
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.model.GeoLocationResult;
+import com.example.ipgeo.provider.GeoProvider;
+import com.example.ipgeo.ratelimit.ClientQuotaService;
+import com.example.ipgeo.service.GeoLocationServiceImpl;
+import com.example.ipgeo.warmup.RecentLookupTracker;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEventsTest {
+
+  private static GeoLocationResult result(String ip) {
+    return new GeoLocationResult(ip, "A", "B", "C", "D", 1.0, 2.0);
+  }
+
+  @Test
+  @DisplayName("lookups → one Lookup event per caller with HIT, MISS, COALESCED and REJECTED outcomes")
+  void lookupOutcomes(@TempDir Path dir) throws IOException {
+    Sinks.One<GeoLocationResult> upstream = Sinks.one();
+    MapCache cache = new MapCache();
+    cache.put("1.1.1.1", result("1.1.1.1"));
+    GeoLocationServiceImpl open = newService(cache, ip -> upstream.asMono(), client -> 0L);
+    GeoLocationServiceImpl exhausted = newService(cache, ip -> Mono.never(), client -> Duration.ofSeconds(1).toNanos());
+
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.example.ipgeo.Lookup");
+      recording.start();
+
+      StepVerifier.create(open.locate("1.1.1.1")).expectNextCount(1).verifyComplete();
+      CompletableFuture<GeoLocationResult> miss = open.locate("2.2.2.2").toFuture();
+      StepVerifier.create(open.locate("2.2.2.2")).then(() -> upstream.tryEmitValue(result("2.2.2.2")))
+              .expectNextCount(1).verifyComplete();
+      assertThat(miss).isCompleted();
+      StepVerifier.create(exhausted.locate("3.3.3.3")).expectError().verify();
+
+      recording.stop();
+      events = dump(recording, dir);
+    }
+
+    assertThat(events).extracting(e -> e.getString("ip") + "=" + e.getString("outcome"))
+            .containsExactlyInAnyOrder("1.1.1.1=HIT", "2.2.2.2=MISS", "2.2.2.2=COALESCED", "3.3.3.3=REJECTED");
+  }
+
+  @Test
+  @DisplayName("L1 evictions over the threshold within a period → CacheEvictionBurst event")
+  void evictionBurst(@TempDir Path dir) throws Exception {
+    AppProperties props = new AppProperties();
+    props.getCache().setTtlDays(1);
+    props.getCache().setMaxSize(1);
+    props.getCache().setEvictionBurstThreshold(5);
+    CaffeineCacheService cache = new CaffeineCacheService(props);
+
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.example.ipgeo.CacheEvictionBurst").withPeriod(Duration.ofMillis(100));
+      recording.start();
+      for (int i = 0; i < 50; i++) {
+        cache.put("10.0.0." + i, result("10.0.0." + i));
+        cache.get("10.0.0." + i);
+      }
+      Thread.sleep(500);
+      recording.stop();
+      events = dump(recording, dir);
+    } finally {
+      cache.close();
+    }
+
+    assertThat(events).isNotEmpty();
+    assertThat(events.stream().mapToLong(e -> e.getLong("size")).sum()).isGreaterThanOrEqualTo(5);
+  }
+
+  private static List<RecordedEvent> dump(Recording recording, Path dir) throws IOException {
+    Path file = dir.resolve("events.jfr");
+    recording.dump(file);
+    return RecordingFile.readAllEvents(file);
+  }
+
+  private static GeoLocationServiceImpl newService(CacheService cache, GeoProvider provider,
+                                                   ClientQuotaService quota) {
+    AppProperties props = new AppProperties();
+    props.getWarmup().setRecentWindow(Duration.ofMinutes(1));
+    props.getWarmup().setRecentMaxTracked(100);
+    return new GeoLocationServiceImpl(cache, provider, quota, new RecentLookupTracker(props));
+  }
+
+  private static class MapCache implements CacheService {
+    private final ConcurrentHashMap<String, GeoLocationResult> map = new ConcurrentHashMap<>();
+    @Override public Optional<GeoLocationResult> get(String key) { return Optional.ofNullable(map.get(key)); }
+    @Override public void put(String key, GeoLocationResult value) { map.put(key, value); }
+  }
+}
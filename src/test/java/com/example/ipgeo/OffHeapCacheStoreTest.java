@@ -0,0 +1,138 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.cache.CacheEntry;
+import com.example.ipgeo.cache.CaffeineCacheService;
+import com.example.ipgeo.cache.OffHeapCacheStore;
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.model.GeoLocationResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapCacheStoreTest {
+
+  private static final long NOW = 1_000_000L;
+
+  private static GeoLocationResult result(String ip) {
+    return new GeoLocationResult(ip, "Europe", "Israel", "Center", "Tel Aviv", 32.08, 34.78);
+  }
+
+  @Test
+  @DisplayName("put then get → same result and expiry")
+  void roundTrip() {
+    OffHeapCacheStore store = new OffHeapCacheStore(1024, 160, 4, 16, null);
+    CacheEntry entry = new CacheEntry(result("1.2.3.4"), NOW + 5000, 5000);
+
+    assertThat(store.put("1.2.3.4", entry, NOW)).isTrue();
+
+    assertThat(store.get("1.2.3.4", NOW)).isEqualTo(entry);
+    assertThat(store.get("5.6.7.8", NOW)).isNull();
+  }
+
+  @Test
+  @DisplayName("empty and missing fields → round-trip exactly, \"\" stays \"\" and null stays null")
+  void roundTripEmptyFields() {
+    OffHeapCacheStore store = new OffHeapCacheStore(1024, 160, 4, 16, null);
+    GeoLocationResult sparse = new GeoLocationResult("100.64.0.1", "Asia", "Israel", "", null, 32.08, null);
+    CacheEntry entry = new CacheEntry(sparse, NOW + 5000, 5000);
+
+    store.put("100.64.0.1", entry, NOW);
+
+    assertThat(store.get("100.64.0.1", NOW)).isEqualTo(entry);
+  }
+
+  @Test
+  @DisplayName("second put for a key overwrites in place")
+  void overwrite() {
+    OffHeapCacheStore store = new OffHeapCacheStore(1024, 160, 4, 16, null);
+    store.put("1.2.3.4", new CacheEntry(result("1.2.3.4"), NOW + 5000, 5000), NOW);
+    GeoLocationResult moved = new GeoLocationResult("1.2.3.4", "Asia", "Japan", "Kanto", "Tokyo", 35.68, 139.69);
+
+    store.put("1.2.3.4", new CacheEntry(moved, NOW + 9000, 9000), NOW);
+
+    assertThat(store.get("1.2.3.4", NOW).result()).isEqualTo(moved);
+  }
+
+  @Test
+  @DisplayName("entry past its expiry → miss")
+  void expired() {
+    OffHeapCacheStore store = new OffHeapCacheStore(1024, 160, 4, 16, null);
+    store.put("1.2.3.4", new CacheEntry(result("1.2.3.4"), NOW + 5000, 5000), NOW);
+
+    assertThat(store.get("1.2.3.4", NOW + 5000)).isNull();
+  }
+
+  @Test
+  @DisplayName("full probe window → one unreferenced entry evicted, recently read entry kept")
+  void clockEviction() {
+    OffHeapCacheStore store = new OffHeapCacheStore(8, 160, 1, 8, null);
+    for (int i = 0; i < 8; i++) {
+      store.put("10.0.0." + i, new CacheEntry(result("10.0.0." + i), NOW + 5000, 5000), NOW);
+    }
+    store.get("10.0.0.3", NOW);
+
+    store.put("10.0.0.100", new CacheEntry(result("10.0.0.100"), NOW + 5000, 5000), NOW);
+
+    assertThat(store.get("10.0.0.3", NOW)).isNotNull();
+    assertThat(store.get("10.0.0.100", NOW)).isNotNull();
+    long survivors = IntStream.range(0, 8)
+            .filter(i -> store.get("10.0.0." + i, NOW) != null).count();
+    assertThat(survivors).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("memory-mapped file backing behaves like direct memory")
+  void mappedFile(@TempDir Path dir) {
+    OffHeapCacheStore store = new OffHeapCacheStore(1024, 160, 2, 16, dir.resolve("l2.bin"));
+    CacheEntry entry = new CacheEntry(result("::1"), NOW + 5000, 5000);
+    store.put("::1", entry, NOW);
+
+    assertThat(store.get("::1", NOW)).isEqualTo(entry);
+  }
+
+  @Test
+  @DisplayName("segment over 2 GiB → rejected at construction")
+  void oversizedSegment() {
+    assertThatThrownBy(() -> new OffHeapCacheStore(100_000_000L, 160, 1, 16, null))
+            .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("L1 eviction → served from L2 and promoted with its remaining TTL")
+  void promotesFromL2() {
+    AppProperties props = new AppProperties();
+    props.getCache().setTtlDays(30);
+    props.getCache().setMaxSize(1);
+    AppProperties.L2 l2 = props.getCache().getL2();
+    l2.setEnabled(true);
+    l2.setCapacity(4096);
+    l2.setSlotBytes(160);
+    l2.setSegments(4);
+    l2.setMaxProbe(16);
+    AtomicLong clock = new AtomicLong(NOW);
+    CaffeineCacheService cache = new CaffeineCacheService(props, clock::get, Runnable::run);
+
+    cache.put("1.1.1.1", result("1.1.1.1"));
+    clock.addAndGet(Duration.ofDays(1).toMillis());
+    // timeToLive only consults L1, so it tells us when 1.1.1.1 has really been evicted there
+    for (int i = 0; cache.timeToLive("1.1.1.1").isPresent(); i++) {
+      assertThat(i).as("L1 never evicted 1.1.1.1").isLessThan(1000);
+      String other = "10.1." + (i / 256) + "." + (i % 256);
+      cache.put(other, result(other));
+      cache.get(other);
+      cache.get(other);
+    }
+
+    assertThat(cache.get("1.1.1.1")).contains(result("1.1.1.1"));
+    assertThat(cache.timeToLive("1.1.1.1")).contains(Duration.ofDays(29));
+    cache.close();
+  }
+}
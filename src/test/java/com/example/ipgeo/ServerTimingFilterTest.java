@@ -0,0 +1,131 @@
+package com.example.ipgeo;
+
+import com.example.ipgeo.config.AppProperties;
+import com.example.ipgeo.observability.OtlpSpanExporter;
+import com.example.ipgeo.observability.RequestTimings;
+import com.example.ipgeo.observability.ServerTimingFilter;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingFilterTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+  private MockWebServer collector;
+  private AppProperties props;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    collector = new MockWebServer();
+    collector.start();
+    props = new AppProperties();
+    props.getTiming().setEnabled(true);
+    AppProperties.Timing.Export export = props.getTiming().getExport();
+    export.setEndpoint(collector.url("/v1/traces").toString());
+    export.setServiceName("ip-geolocation-test");
+    export.setInterval(Duration.ofMinutes(1));
+    export.setMaxQueued(10);
+    export.setMaxBatch(10);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    collector.shutdown();
+  }
+
+  /** Stands in for the lookup pipeline: records one stage, then commits the response. */
+  private static final WebFilterChain RECORDING_CHAIN = exchange -> Mono.deferContextual(ctx -> {
+    RequestTimings.from(ctx).record("cache", System.nanoTime() - 1_500_000);
+    return exchange.getResponse().setComplete();
+  });
+
+  @Test
+  @DisplayName("recorded stages → Server-Timing header with per-stage and total durations")
+  void writesServerTimingHeader() {
+    ServerTimingFilter filter = new ServerTimingFilter(props, new OtlpSpanExporter(props, WebClient.builder()));
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/ip?address=1.1.1.1"));
+
+    filter.filter(exchange, RECORDING_CHAIN).block();
+
+    String header = exchange.getResponse().getHeaders().getFirst("Server-Timing");
+    assertThat(header).matches("cache;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}");
+    double cacheMillis = Double.parseDouble(header.substring("cache;dur=".length(), header.indexOf(',')));
+    assertThat(cacheMillis).isGreaterThanOrEqualTo(1.5);
+  }
+
+  @Test
+  @DisplayName("timing disabled → no header and stages are not recorded")
+  void disabled() {
+    props.getTiming().setEnabled(false);
+    ServerTimingFilter filter = new ServerTimingFilter(props, new OtlpSpanExporter(props, WebClient.builder()));
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/ip?address=1.1.1.1"));
+
+    filter.filter(exchange, RECORDING_CHAIN).block();
+
+    assertThat(exchange.getResponse().getHeaders().containsKey("Server-Timing")).isFalse();
+  }
+
+  @Test
+  @DisplayName("export enabled → request and its stages sent as OTLP/JSON spans in the caller's trace")
+  void exportsSpans() throws InterruptedException {
+    props.getTiming().getExport().setEnabled(true);
+    collector.enqueue(new MockResponse().setResponseCode(200));
+    OtlpSpanExporter exporter = new OtlpSpanExporter(props, WebClient.builder());
+    ServerTimingFilter filter = new ServerTimingFilter(props, exporter);
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/ip?address=1.1.1.1")
+            .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01"));
+
+    filter.filter(exchange, RECORDING_CHAIN).block();
+    exporter.flush().block(Duration.ofSeconds(5));
+
+    RecordedRequest request = collector.takeRequest(5, TimeUnit.SECONDS);
+    assertThat(request).isNotNull();
+    assertThat(request.getPath()).isEqualTo("/v1/traces");
+    String body = request.getBody().readUtf8();
+    assertThat(body)
+            .contains("\"traceId\":\"" + TRACE_ID + "\"")
+            .contains("\"parentSpanId\":\"00f067aa0ba902b7\"")
+            .contains("\"name\":\"GET /ip\"")
+            .contains("\"name\":\"cache\"")
+            .contains("ip-geolocation-test");
+  }
+
+  @Test
+  @DisplayName("malformed traceparent → not trusted; request exported as the root of a new trace")
+  void ignoresMalformedTraceparent() throws InterruptedException {
+    props.getTiming().getExport().setEnabled(true);
+    collector.enqueue(new MockResponse().setResponseCode(200));
+    OtlpSpanExporter exporter = new OtlpSpanExporter(props, WebClient.builder());
+    ServerTimingFilter filter = new ServerTimingFilter(props, exporter);
+    String upperCase = TRACE_ID.toUpperCase();
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/ip?address=1.1.1.1")
+            .header("traceparent", "00-" + upperCase + "-00f067aa0ba902b7-01"));
+
+    filter.filter(exchange, RECORDING_CHAIN).block();
+    exporter.flush().block(Duration.ofSeconds(5));
+
+    RecordedRequest request = collector.takeRequest(5, TimeUnit.SECONDS);
+    assertThat(request).isNotNull();
+    String body = request.getBody().readUtf8();
+    assertThat(body)
+            .doesNotContain(upperCase)
+            .doesNotContain("00f067aa0ba902b7")
+            .containsPattern("\"traceId\":\"[0-9a-f]{32}\"");
+  }
+}
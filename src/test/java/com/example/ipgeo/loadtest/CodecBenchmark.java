@@ -0,0 +1,86 @@
+package com.example.ipgeo.loadtest;
+
+import com.example.ipgeo.codec.CborSequenceEncoder;
+import com.example.ipgeo.codec.GeoLocationProtobufEncoder;
+import com.example.ipgeo.model.GeoLocationResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payload size and CPU per encoded response for each negotiable format, using the same encoders
+ * the server registers. Run with {@code mvn test -Ploadtest -Dtest=CodecBenchmark}.
+ */
+@Tag("loadtest")
+class CodecBenchmark {
+
+  private static final int WARMUP = 200_000;
+  private static final int MEASURED = 1_000_000;
+  private static final GeoLocationResult SAMPLE = new GeoLocationResult(
+          "2001:db8:85a3::8a2e:370:7334", "North America", "United States", "California", "Mountain View",
+          37.4056, -122.0775);
+
+  @Test
+  @DisplayName("JSON vs CBOR vs Smile vs protobuf → bytes and CPU ns per response")
+  void compareEncodings() {
+    Map<String, Encoder<GeoLocationResult>> encoders = new LinkedHashMap<>();
+    encoders.put("application/json", cast(new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build())));
+    encoders.put("application/cbor", cast(new CborSequenceEncoder(new ObjectMapper(new CBORFactory()))));
+    encoders.put("application/x-jackson-smile", cast(new Jackson2SmileEncoder()));
+    encoders.put("application/x-protobuf", new GeoLocationProtobufEncoder());
+
+    DataBufferFactory buffers = DefaultDataBufferFactory.sharedInstance;
+    ResolvableType type = ResolvableType.forClass(GeoLocationResult.class);
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    StringBuilder report = new StringBuilder("---- codec benchmark ----\n");
+    report.append(String.format("%-30s %8s %12s%n", "format", "bytes", "cpu ns/op"));
+    for (Map.Entry<String, Encoder<GeoLocationResult>> e : encoders.entrySet()) {
+      MimeType mime = MimeType.valueOf(e.getKey());
+      Encoder<GeoLocationResult> encoder = e.getValue();
+      int size = 0;
+      for (int i = 0; i < WARMUP; i++) {
+        size = encodeOnce(encoder, buffers, type, mime);
+      }
+      long cpuStart = threads.getCurrentThreadCpuTime();
+      for (int i = 0; i < MEASURED; i++) {
+        encodeOnce(encoder, buffers, type, mime);
+      }
+      double nsPerOp = (threads.getCurrentThreadCpuTime() - cpuStart) / (double) MEASURED;
+      report.append(String.format("%-30s %8d %12.1f%n", e.getKey(), size, nsPerOp));
+      assertThat(size).isPositive();
+    }
+    System.out.println(report);
+  }
+
+  private static int encodeOnce(Encoder<GeoLocationResult> encoder, DataBufferFactory buffers,
+                                ResolvableType type, MimeType mime) {
+    DataBuffer buffer = encoder.encodeValue(SAMPLE, buffers, type, mime, null);
+    int size = buffer.readableByteCount();
+    DataBufferUtils.release(buffer);
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Encoder<GeoLocationResult> cast(Encoder<?> encoder) {
+    return (Encoder<GeoLocationResult>) encoder;
+  }
+}
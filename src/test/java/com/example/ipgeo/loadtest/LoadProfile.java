@@ -0,0 +1,56 @@
+package com.example.ipgeo.loadtest;
+
+import java.time.Duration;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Load-test knobs, read from {@code -Dloadtest.*} system properties.
+ * Application settings (rate limiter, retries, cache sizes...) are overridden the usual
+ * Spring way, e.g. {@code -Dresilience4j.retry.instances.geoApiRetry.maxAttempts=1}.
+ */
+record LoadProfile(
+        double requestsPerSecond,
+        Duration duration,
+        Duration warmup,
+        int maxInFlight,
+        double hitRatio,
+        int hotSetSize,
+        double zipfExponent,
+        Duration upstreamMedianLatency,
+        double upstreamLatencySigma,
+        double upstreamErrorRate,
+        double upstreamThrottleRate
+) {
+
+  static LoadProfile fromSystemProperties() {
+    return new LoadProfile(
+            dbl("loadtest.rps", 200),
+            duration("loadtest.duration", "30s"),
+            duration("loadtest.warmup", "10s"),
+            (int) dbl("loadtest.max-in-flight", 2000),
+            dbl("loadtest.hit-ratio", 0.9),
+            (int) dbl("loadtest.hot-set-size", 1000),
+            dbl("loadtest.zipf-exponent", 1.1),
+            duration("loadtest.upstream.median-latency", "80ms"),
+            dbl("loadtest.upstream.latency-sigma", 0.5),
+            dbl("loadtest.upstream.error-rate", 0.01),
+            dbl("loadtest.upstream.throttle-rate", 0.0)
+    );
+  }
+
+  /** Same traffic shape for the unrecorded JIT/connection warm-up phase. */
+  LoadProfile forWarmup() {
+    return new LoadProfile(requestsPerSecond, warmup, Duration.ZERO, maxInFlight, hitRatio, hotSetSize, zipfExponent,
+            upstreamMedianLatency, upstreamLatencySigma, upstreamErrorRate, upstreamThrottleRate);
+  }
+
+  private static double dbl(String key, double def) {
+    String v = System.getProperty(key);
+    return v == null || v.isBlank() ? def : Double.parseDouble(v);
+  }
+
+  private static Duration duration(String key, String def) {
+    String v = System.getProperty(key);
+    return DurationStyle.detectAndParse(v == null || v.isBlank() ? def : v);
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.ipgeo.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Entry point for the load-test harness. Excluded from the default build; run with
+ * {@code mvn test -Ploadtest -Dloadtest.rps=500 -Dloadtest.duration=60s}.
+ */
+@Tag("loadtest")
+class LoadTest {
+
+  @Test
+  @DisplayName("open-model load against local upstream stub → prints latency/throughput report")
+  void openModel() throws Exception {
+    LoadTestHarness.Report report = LoadTestHarness.run(LoadProfile.fromSystemProperties());
+    System.out.println(report);
+
+    assertThat(report.sent()).isPositive();
+  }
+}
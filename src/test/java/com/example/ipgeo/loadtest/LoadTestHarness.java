@@ -0,0 +1,218 @@
+package com.example.ipgeo.loadtest;
+
+import com.example.ipgeo.IpGeoReactiveApplication;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Starts the application against an {@link UpstreamStub} and drives {@code GET /ip} with
+ * open-model (Poisson) arrivals. Latency is measured from each request's intended send time,
+ * so a stalled server shows up in the tail instead of silently lowering the offered load.
+ */
+final class LoadTestHarness {
+
+  private LoadTestHarness() {}
+
+  static Report run(LoadProfile profile) throws Exception {
+    try (UpstreamStub stub = new UpstreamStub(profile)) {
+      String upstreamUrl = stub.start();
+      Map<String, String> defaults = new LinkedHashMap<>();
+      defaults.put("server.port", "0");
+      defaults.put("ipgeo.freeipapi.base-url", upstreamUrl);
+      defaults.put("ipgeo.freeipapi.ratelimiter.enabled", "false");
+      defaults.put("ipgeo.quota.enabled", "false");
+      defaults.put("ipgeo.warmup.on-startup", "false");
+      defaults.put("logging.level.com.example.ipgeo", "WARN");
+      ConfigurableApplicationContext app = new SpringApplicationBuilder(IpGeoReactiveApplication.class)
+              .run(args(defaults));
+      try {
+        int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+        WebClient client = client(port, profile.maxInFlight());
+        prime(client, profile);
+        AtomicLong freshCounter = new AtomicLong(); // shared so measured misses are never warm-up leftovers
+        if (!profile.warmup().isZero()) {
+          drive(client, profile.forWarmup(), stub, freshCounter);
+        }
+        stub.resetCounters();
+        return drive(client, profile, stub, freshCounter);
+      } finally {
+        app.close();
+      }
+    }
+  }
+
+  /** Harness defaults as command-line args, skipping any key already given as a -D system property. */
+  private static String[] args(Map<String, String> defaults) {
+    return defaults.entrySet().stream()
+            .filter(e -> System.getProperty(e.getKey()) == null)
+            .map(e -> "--" + e.getKey() + "=" + e.getValue())
+            .toArray(String[]::new);
+  }
+
+  private static WebClient client(int port, int maxConnections) {
+    ConnectionProvider pool = ConnectionProvider.builder("loadtest")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(-1)
+            .build();
+    return WebClient.builder()
+            .baseUrl("http://localhost:" + port)
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(pool)))
+            .build();
+  }
+
+  /** Looks up the whole hot set once so that Zipfian picks from it are cache hits. */
+  private static void prime(WebClient client, LoadProfile profile) {
+    Flux.range(0, profile.hotSetSize())
+            .flatMap(i -> send(client, hotAddress(i)).onErrorResume(e -> Mono.empty()), 32)
+            .blockLast(Duration.ofMinutes(5));
+  }
+
+  private static Report drive(WebClient client, LoadProfile profile, UpstreamStub stub, AtomicLong freshCounter)
+          throws InterruptedException {
+    ZipfianGenerator popularity = new ZipfianGenerator(profile.hotSetSize(), profile.zipfExponent());
+    int expected = (int) Math.min(Integer.MAX_VALUE - 8,
+            profile.requestsPerSecond() * profile.duration().toSeconds() * 2 + 1024);
+    long[] latencies = new long[expected];
+    AtomicInteger recorded = new AtomicInteger();
+    AtomicInteger inFlight = new AtomicInteger();
+    Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    LongAdder failures = new LongAdder();
+    long dropped = 0;
+    long sent = 0;
+
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    double meanGapNanos = 1e9 / profile.requestsPerSecond();
+    long start = System.nanoTime();
+    long end = start + profile.duration().toNanos();
+    long next = start;
+    while (next - end < 0) {
+      long wait = next - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      long intended = next;
+      next += (long) (-Math.log(1 - rnd.nextDouble()) * meanGapNanos);
+      if (inFlight.get() >= profile.maxInFlight()) {
+        dropped++;
+        continue;
+      }
+      String ip = rnd.nextDouble() < profile.hitRatio()
+              ? hotAddress(popularity.next())
+              : freshAddress(freshCounter.getAndIncrement());
+      inFlight.incrementAndGet();
+      sent++;
+      send(client, ip)
+              .doFinally(sig -> inFlight.decrementAndGet())
+              .subscribe(
+                      status -> {
+                        record(latencies, recorded, System.nanoTime() - intended);
+                        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                      },
+                      err -> {
+                        record(latencies, recorded, System.nanoTime() - intended);
+                        failures.increment();
+                      });
+    }
+    long drainDeadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+    while (inFlight.get() > 0 && System.nanoTime() - drainDeadline < 0) {
+      Thread.sleep(10);
+    }
+    double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+    long[] sorted = Arrays.copyOf(latencies, Math.min(recorded.get(), latencies.length));
+    Arrays.sort(sorted);
+    Map<Integer, Long> statusCounts = new TreeMap<>();
+    statuses.forEach((k, v) -> statusCounts.put(k, v.sum()));
+    return new Report(profile, sent, dropped, failures.sum(), sorted.length / elapsedSeconds,
+            percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+            sorted.length == 0 ? Duration.ZERO : Duration.ofNanos(sorted[sorted.length - 1]),
+            statusCounts, stub.calls(), stub.errors(), stub.throttled());
+  }
+
+  private static Mono<Integer> send(WebClient client, String ip) {
+    return client.get()
+            .uri("/ip?address={ip}", ip)
+            .exchangeToMono(resp -> resp.releaseBody().thenReturn(resp.statusCode().value()));
+  }
+
+  private static void record(long[] latencies, AtomicInteger recorded, long nanos) {
+    int i = recorded.getAndIncrement();
+    if (i < latencies.length) {
+      latencies[i] = nanos;
+    }
+  }
+
+  private static Duration percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return Duration.ZERO;
+    }
+    return Duration.ofNanos(sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)]);
+  }
+
+  private static String hotAddress(int rank) {
+    return "172.16." + ((rank >> 8) & 0xff) + "." + (rank & 0xff);
+  }
+
+  private static String freshAddress(long n) {
+    return "10." + ((n >> 16) & 0xff) + "." + ((n >> 8) & 0xff) + "." + (n & 0xff);
+  }
+
+  record Report(
+          LoadProfile profile,
+          long sent,
+          long dropped,
+          long failures,
+          double throughput,
+          Duration p50,
+          Duration p99,
+          Duration p999,
+          Duration max,
+          Map<Integer, Long> statuses,
+          long upstreamCalls,
+          long upstreamErrors,
+          long upstreamThrottled
+  ) {
+    @Override
+    public String toString() {
+      return """
+          ---- load test ----
+          offered     %.0f req/s for %s after %s warm-up (hit ratio %.2f, hot set %d, zipf %.2f)
+          upstream    median %s, sigma %.2f, error %.3f, 429 %.3f
+          sent        %d (dropped at max-in-flight: %d, client failures: %d)
+          throughput  %.1f req/s
+          latency     p50 %.2f ms | p99 %.2f ms | p999 %.2f ms | max %.2f ms
+          statuses    %s
+          upstream    %d calls (%.3f per request), %d errors, %d throttled
+          """.formatted(
+              profile.requestsPerSecond(), profile.duration(), profile.warmup(), profile.hitRatio(), profile.hotSetSize(), profile.zipfExponent(),
+              profile.upstreamMedianLatency(), profile.upstreamLatencySigma(), profile.upstreamErrorRate(), profile.upstreamThrottleRate(),
+              sent, dropped, failures,
+              throughput,
+              millis(p50), millis(p99), millis(p999), millis(max),
+              statuses,
+              upstreamCalls, sent == 0 ? 0.0 : (double) upstreamCalls / sent, upstreamErrors, upstreamThrottled);
+    }
+
+    private static double millis(Duration d) {
+      return d.toNanos() / 1e6;
+    }
+  }
+}
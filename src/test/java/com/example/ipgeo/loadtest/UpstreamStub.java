@@ -0,0 +1,94 @@
+package com.example.ipgeo.loadtest;
+
+import java.io.IOException;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local FreeIPAPI stand-in with log-normal latency, a random 5xx rate and a random 429 rate.
+ * Answers both {@code GET /{ip}} and the bulk {@code POST} (JSON array of addresses).
+ * Counts every call it serves so the report can show how much upstream work a run cost.
+ */
+final class UpstreamStub implements AutoCloseable {
+
+  private final MockWebServer server = new MockWebServer();
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicLong throttled = new AtomicLong();
+  private final LoadProfile profile;
+
+  UpstreamStub(LoadProfile profile) {
+    this.profile = profile;
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return respond(request);
+      }
+    });
+  }
+
+  String start() throws IOException {
+    server.start();
+    return server.url("/").toString();
+  }
+
+  long calls() { return calls.get(); }
+  long errors() { return errors.get(); }
+  long throttled() { return throttled.get(); }
+
+  void resetCounters() {
+    calls.set(0);
+    errors.set(0);
+    throttled.set(0);
+  }
+
+  private MockResponse respond(RecordedRequest request) {
+    calls.incrementAndGet();
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    long delayMicros = (long) (profile.upstreamMedianLatency().toNanos() / 1000.0
+            * Math.exp(profile.upstreamLatencySigma() * rnd.nextGaussian()));
+    MockResponse response;
+    double roll = rnd.nextDouble();
+    if (roll < profile.upstreamThrottleRate()) {
+      throttled.incrementAndGet();
+      response = new MockResponse().setResponseCode(429).addHeader("Retry-After", "1").setBody("Too Many Requests");
+    } else if (roll < profile.upstreamThrottleRate() + profile.upstreamErrorRate()) {
+      errors.incrementAndGet();
+      response = new MockResponse().setResponseCode(500).setBody("Internal Server Error");
+    } else if ("POST".equals(request.getMethod())) {
+      // bulk: ["1.2.3.4","5.6.7.8"] -> [{...},{...}]
+      String body = request.getBody().readUtf8().replaceAll("[\\[\\]\"\\s]", "");
+      StringJoiner items = new StringJoiner(",", "[", "]");
+      for (String ip : body.split(",")) {
+        if (!ip.isEmpty()) {
+          items.add(answer(ip));
+        }
+      }
+      response = new MockResponse().setResponseCode(200).addHeader("Content-Type", "application/json").setBody(items.toString());
+    } else {
+      String path = request.getPath() == null ? "/" : request.getPath();
+      response = new MockResponse()
+              .setResponseCode(200)
+              .addHeader("Content-Type", "application/json")
+              .setBody(answer(path.substring(1)));
+    }
+    return response.setHeadersDelay(delayMicros, TimeUnit.MICROSECONDS);
+  }
+
+  private static String answer(String ip) {
+    return """
+        {"ipAddress":"%s","continent":"Europe","countryName":"Germany","regionName":"Bavaria",\
+        "cityName":"Munich","latitude":48.1351,"longitude":11.582}""".formatted(ip);
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.shutdown();
+  }
+}
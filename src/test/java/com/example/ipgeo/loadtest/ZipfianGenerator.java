@@ -0,0 +1,30 @@
+package com.example.ipgeo.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^exponent},
+ * so a handful of addresses get most of the traffic, like real IP popularity.
+ */
+final class ZipfianGenerator {
+
+  private final double[] cdf;
+
+  ZipfianGenerator(int n, double exponent) {
+    cdf = new double[n];
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cdf[i] = sum;
+    }
+    for (int i = 0; i < n; i++) {
+      cdf[i] /= sum;
+    }
+  }
+
+  int next() {
+    int idx = Arrays.binarySearch(cdf, ThreadLocalRandom.current().nextDouble());
+    return Math.min(idx >= 0 ? idx : -idx - 1, cdf.length - 1);
+  }
+}